@@ -1,6 +1,10 @@
 package common;
 
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.function.Function;
 
 import common.tuple.Pair;
 
@@ -9,28 +13,362 @@ public class Comparators {
   
   /**
    * Compares strings based on number first, then letter.<br>
-   * A < B < 1 < 1A < 2 < 5C < 10 < 10A
+   * A < B < 1 < 1A < 2 < 5C < 10 < 10A<br>
+   * <br>
+   * The leading number may have any number of digits.  Strings are compared
+   * in place without allocating; for repeated sorts of the same strings, see
+   * {@link #numeroAlphaKey(String)}.
    */
   public static Comparator<String> NUMERO_ALPHA = (s1, s2) -> {
-    Pair<Integer, String> nl1 = getNumberAndLetter(s1);
-    Pair<Integer, String> nl2 = getNumberAndLetter(s2);
+    final int end1 = digitRunEnd(s1, 0);
+    final int end2 = digitRunEnd(s2, 0);
     
-    int temp = nl1._1().intValue() - nl2._1().intValue();
+    final int temp = compareNumbers(s1, 0, end1, s2, 0, end2);
     if (temp == 0)
-      return nl1._2().compareTo(nl2._2());
+      return compareRegions(s1, end1, s2, end2);
     else
       return temp;
   };
+  
+  /**
+   * Like {@link #NUMERO_ALPHA}, but ignores case when comparing the part of
+   * the strings after the leading number, as
+   * {@link String#CASE_INSENSITIVE_ORDER} does.
+   */
+  public static final Comparator<String> NUMERO_ALPHA_IGNORE_CASE = (s1, s2) -> {
+    final int end1 = digitRunEnd(s1, 0);
+    final int end2 = digitRunEnd(s2, 0);
     
-  private static Pair<Integer, String> getNumberAndLetter(String s) {
-    StringBuilder sb = new StringBuilder();
-    for (char c : s.toCharArray()) {
-      if (Character.isDigit(c))
-        sb.append(c);
-      else break;
+    final int temp = compareNumbers(s1, 0, end1, s2, 0, end2);
+    if (temp == 0)
+      return compareNatural(s1, end1, s1.length(), s2, end2, s2.length(), true, false);
+    else
+      return temp;
+  };
+  
+  /**
+   * Compares strings in natural order: every run of digits, wherever it
+   * appears, is compared by numeric value, and everything else character by
+   * character.<br>
+   * file2 < file10 < file10b < file10b2 < file10b10<br>
+   * <br>
+   * Numbers may have any number of digits.  Strings that differ only in
+   * leading zeros are ordered by {@link String#compareTo(String)}, so the
+   * order is consistent with equals.  Does not allocate.
+   */
+  public static final Comparator<String> NATURAL = (s1, s2) -> {
+    final int temp = compareNatural(s1, 0, s1.length(), s2, 0, s2.length(), false, true);
+    return temp != 0 ? temp : s1.compareTo(s2);
+  };
+  
+  /**
+   * Like {@link #NATURAL}, but ignores case as
+   * {@link String#CASE_INSENSITIVE_ORDER} does.
+   */
+  public static final Comparator<String> NATURAL_IGNORE_CASE = (s1, s2) -> {
+    final int temp = compareNatural(s1, 0, s1.length(), s2, 0, s2.length(), true, true);
+    return temp != 0 ? temp : s1.compareToIgnoreCase(s2);
+  };
+  
+  /**
+   * Compares version strings.  Versions are split into components at '.',
+   * '-', '_' and '+', and compared component by component:
+   * <ul>
+   *   <li>components starting with a digit are compared in natural order
+   *   (see {@link #NATURAL}), so 1.9 < 1.10 and 2.0a < 2.0b</li>
+   *   <li>components starting with anything else are qualifiers, compared
+   *   ignoring case, and sort before numeric components, so 1.0-beta <
+   *   1.0.1</li>
+   *   <li>missing trailing components count as 0, so 1.0 equals 1.0.0, but a
+   *   version followed by a qualifier comes first, so 1.0-rc1 < 1.0</li>
+   *   <li>empty components (from doubled, leading or trailing separators)
+   *   also count as 0, so 1..2 equals 1.0.2</li>
+   * </ul>
+   * Versions that are otherwise equal are ordered by
+   * {@link String#compareTo(String)}, so the order is consistent with
+   * equals.  Does not allocate.
+   */
+  public static final Comparator<String> VERSION = (s1, s2) -> {
+    final int temp = compareVersions(s1, s2);
+    return temp != 0 ? temp : s1.compareTo(s2);
+  };
+  
+  /**
+   * Sorts a list by keys derived from its elements, computing each element's
+   * key only once (decorate-sort-undecorate).  Use this instead of
+   * {@link Comparator#comparing(Function, Comparator)} when deriving a key
+   * is expensive compared to comparing keys.  The sort is stable.
+   * @param list - the list to sort
+   * @param keyExtractor - derives the sort key of an element
+   * @param keyComparator - compares keys
+   */
+  public static <T, K> void sortByKey(List<T> list, Function<? super T, ? extends K> keyExtractor,
+      Comparator<? super K> keyComparator) {
+    final List<Pair<K, T>> decorated = new ArrayList<>(list.size());
+    for (final T element : list)
+      decorated.add(Pair.make(keyExtractor.apply(element), element));
+    
+    decorated.sort((p1, p2) -> keyComparator.compare(p1._1(), p2._1()));
+    
+    final ListIterator<T> iter = list.listIterator();
+    for (final Pair<K, T> pair : decorated) {
+      iter.next();
+      iter.set(pair._2());
     }
+  }
+  
+  /**
+   * Sorts a list by Comparable keys derived from its elements, computing each
+   * element's key only once.  For example, to sort labels repeatedly by
+   * {@link #NUMERO_ALPHA}:
+   * <pre>
+   *   Comparators.sortByKey(labels, Comparators::numeroAlphaKey)
+   * </pre>
+   * @param list - the list to sort
+   * @param keyExtractor - derives the sort key of an element
+   * @see #sortByKey(List, Function, Comparator)
+   */
+  public static <T, K extends Comparable<? super K>> void sortByKey(List<T> list,
+      Function<? super T, ? extends K> keyExtractor) {
+    sortByKey(list, keyExtractor, Comparator.<K>naturalOrder());
+  }
+  
+  /**
+   * Precomputes the sort key of a string under {@link #NUMERO_ALPHA}.  Keys
+   * compare in the same order as their strings do, but the leading number is
+   * parsed only once, so sorting keys is faster when the same strings are
+   * sorted repeatedly or the comparison is the bottleneck of a large sort.
+   * @param s - the string
+   * @return a key for <tt>s</tt>
+   */
+  public static NumeroAlphaKey numeroAlphaKey(String s) {
+    return new NumeroAlphaKey(s);
+  }
+  
+  /**
+   * The sort key of a string under {@link Comparators#NUMERO_ALPHA}, in the
+   * spirit of {@link java.text.CollationKey}.
+   */
+  public static final class NumeroAlphaKey implements Comparable<NumeroAlphaKey> {
+    // numbers with more significant digits than this don't fit in _number
+    private static final int MAX_LONG_DIGITS = 18;
     
-    final Integer number = sb.length() == 0 ? Integer.valueOf(0) : Integer.valueOf(sb.toString());
-    return Pair.make(number, s.substring(sb.length()));
-  };
+    private final String _source;
+    private final int _numberEnd;
+    private final int _significantDigits;
+    private final long _number;
+    
+    NumeroAlphaKey(String source) {
+      _source = source;
+      _numberEnd = digitRunEnd(source, 0);
+      
+      final int start = skipZeros(source, 0, _numberEnd);
+      _significantDigits = _numberEnd - start;
+      long number = 0;
+      if (_significantDigits <= MAX_LONG_DIGITS)
+        for (int i = start; i < _numberEnd; ++i)
+          number = number * 10 + Character.digit(source.charAt(i), 10);
+      _number = number;
+    }
+    
+    /**
+     * @return the string this key was made from
+     */
+    public String getSourceString() {
+      return _source;
+    }
+    
+    @Override
+    public int compareTo(NumeroAlphaKey other) {
+      int temp = Integer.compare(_significantDigits, other._significantDigits);
+      if (temp != 0)
+        return temp;
+      
+      if (_significantDigits <= MAX_LONG_DIGITS)
+        temp = Long.compare(_number, other._number);
+      else
+        temp = compareNumbers(_source, 0, _numberEnd, other._source, 0, other._numberEnd);
+      if (temp != 0)
+        return temp;
+      
+      return compareRegions(_source, _numberEnd, other._source, other._numberEnd);
+    }
+    
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof NumeroAlphaKey && compareTo((NumeroAlphaKey) obj) == 0;
+    }
+    
+    @Override
+    public int hashCode() {
+      // same as hashing the substring after the number, without creating it
+      int suffixHash = 0;
+      for (int i = _numberEnd; i < _source.length(); ++i)
+        suffixHash = 31 * suffixHash + _source.charAt(i);
+      return 31 * Long.hashCode(_number) + suffixHash;
+    }
+    
+    @Override
+    public String toString() {
+      return _source;
+    }
+  }
+  
+  /**
+   * Compares two regions in natural order: runs of digits by value, other
+   * characters one at a time.  If <tt>numbers</tt> is false, digits are
+   * compared as ordinary characters.
+   */
+  private static int compareNatural(CharSequence s1, int start1, int end1, CharSequence s2, int start2, int end2,
+      boolean ignoreCase, boolean numbers) {
+    int i = start1;
+    int j = start2;
+    while (i < end1 && j < end2) {
+      final char c1 = s1.charAt(i);
+      final char c2 = s2.charAt(j);
+      if (numbers && Character.isDigit(c1) && Character.isDigit(c2)) {
+        final int runEnd1 = Math.min(digitRunEnd(s1, i), end1);
+        final int runEnd2 = Math.min(digitRunEnd(s2, j), end2);
+        final int temp = compareNumbers(s1, i, runEnd1, s2, j, runEnd2);
+        if (temp != 0)
+          return temp;
+        i = runEnd1;
+        j = runEnd2;
+      } else {
+        final int temp = compareChars(c1, c2, ignoreCase);
+        if (temp != 0)
+          return temp;
+        ++i;
+        ++j;
+      }
+    }
+    return Integer.compare(end1 - i, end2 - j);
+  }
+  
+  // the same per-character rule as String.CASE_INSENSITIVE_ORDER when ignoring case
+  private static int compareChars(char c1, char c2, boolean ignoreCase) {
+    if (c1 == c2)
+      return 0;
+    if (ignoreCase) {
+      final char u1 = Character.toUpperCase(c1);
+      final char u2 = Character.toUpperCase(c2);
+      if (u1 == u2)
+        return 0;
+      final char l1 = Character.toLowerCase(u1);
+      final char l2 = Character.toLowerCase(u2);
+      if (l1 == l2)
+        return 0;
+      return l1 - l2;
+    }
+    return c1 - c2;
+  }
+  
+  private static boolean isVersionSeparator(char c) {
+    return c == '.' || c == '-' || c == '_' || c == '+';
+  }
+  
+  // the end of the version component starting at start
+  private static int componentEnd(String s, int start) {
+    final int length = s.length();
+    int end = start;
+    while (end < length && !isVersionSeparator(s.charAt(end)))
+      ++end;
+    return end;
+  }
+  
+  private static boolean isQualifier(String s, int start, int end) {
+    return start < end && !Character.isDigit(s.charAt(start));
+  }
+  
+  // the sign of comparing the version component [start, end) with 0
+  private static int compareToZero(String s, int start, int end) {
+    if (isQualifier(s, start, end))
+      return -1;
+    return skipZeros(s, start, end) < end ? 1 : 0;
+  }
+  
+  private static int compareVersions(String s1, String s2) {
+    final int length1 = s1.length();
+    final int length2 = s2.length();
+    int i = 0;
+    int j = 0;
+    while (i <= length1 || j <= length2) {
+      final boolean done1 = i > length1;
+      final boolean done2 = j > length2;
+      final int end1 = done1 ? i : componentEnd(s1, i);
+      final int end2 = done2 ? j : componentEnd(s2, j);
+      
+      // missing and empty components both count as 0, which keeps the order
+      // transitive when separators are doubled, leading or trailing
+      final int temp;
+      if (end1 == i) {
+        temp = -compareToZero(s2, j, end2);
+      } else if (end2 == j) {
+        temp = compareToZero(s1, i, end1);
+      } else {
+        final boolean qualifier1 = isQualifier(s1, i, end1);
+        final boolean qualifier2 = isQualifier(s2, j, end2);
+        if (qualifier1 != qualifier2)
+          temp = qualifier1 ? -1 : 1;
+        else
+          temp = compareNatural(s1, i, end1, s2, j, end2, qualifier1, true);
+      }
+      if (temp != 0)
+        return temp;
+      
+      i = end1 + 1;
+      j = end2 + 1;
+    }
+    return 0;
+  }
+  
+  // the end of the run of digits starting at start
+  private static int digitRunEnd(CharSequence s, int start) {
+    final int length = s.length();
+    int end = start;
+    while (end < length && Character.isDigit(s.charAt(end)))
+      ++end;
+    return end;
+  }
+  
+  // the index of the first non-zero digit in [start, end), or end
+  private static int skipZeros(CharSequence s, int start, int end) {
+    while (start < end && Character.digit(s.charAt(start), 10) == 0)
+      ++start;
+    return start;
+  }
+  
+  /**
+   * Compares the values of two runs of digits of any length, without
+   * parsing them.  Empty runs have the value 0.
+   */
+  private static int compareNumbers(CharSequence s1, int start1, int end1, CharSequence s2, int start2, int end2) {
+    start1 = skipZeros(s1, start1, end1);
+    start2 = skipZeros(s2, start2, end2);
+    
+    final int temp = Integer.compare(end1 - start1, end2 - start2);
+    if (temp != 0)
+      return temp;
+    
+    for (; start1 < end1; ++start1, ++start2) {
+      final int digitDiff = Character.digit(s1.charAt(start1), 10) - Character.digit(s2.charAt(start2), 10);
+      if (digitDiff != 0)
+        return digitDiff;
+    }
+    return 0;
+  }
+  
+  // String.compareTo applied to the suffixes starting at start1 and start2
+  private static int compareRegions(CharSequence s1, int start1, CharSequence s2, int start2) {
+    final int length1 = s1.length() - start1;
+    final int length2 = s2.length() - start2;
+    final int limit = Math.min(length1, length2);
+    for (int k = 0; k < limit; ++k) {
+      final char c1 = s1.charAt(start1 + k);
+      final char c2 = s2.charAt(start2 + k);
+      if (c1 != c2)
+        return c1 - c2;
+    }
+    return length1 - length2;
+  }
 }
@@ -0,0 +1,228 @@
+package common;
+
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.mutable.MutableByte;
+import org.apache.commons.lang3.mutable.MutableDouble;
+import org.apache.commons.lang3.mutable.MutableFloat;
+import org.apache.commons.lang3.mutable.MutableInt;
+import org.apache.commons.lang3.mutable.MutableLong;
+import org.apache.commons.lang3.mutable.MutableShort;
+
+/**
+ * Makes deep copies of object graphs built from {@link Copyable}s,
+ * collections and arrays.  Each object is copied at most once per
+ * DeepCopier: objects reachable by more than one path are copied once and
+ * the copy is shared, just as the original was.<br>
+ * <br>
+ * Objects are copied as follows:
+ * <ul>
+ * <li>{@link Immutable}s, Strings, boxed primitives, BigIntegers,
+ * BigDecimals and enums are shared, not copied</li>
+ * <li>{@link DeepCopyable}s copy themselves through
+ * {@link DeepCopyable#deepCopy(DeepCopier)}</li>
+ * <li>other {@link Copyable}s are copied with {@link Copyable#copy()}</li>
+ * <li>Lists, Sets and Maps are copied into an ArrayList, a LinkedHashSet (or
+ * TreeSet for SortedSets) or a LinkedHashMap (or TreeMap for SortedMaps),
+ * with their elements (and keys and values) copied</li>
+ * <li>arrays are copied, with their elements copied</li>
+ * <li>mutable Numbers (AtomicInteger, AtomicLong, LongAdder, DoubleAdder and
+ * the commons-lang3 Mutable numbers) are copied with their current value</li>
+ * <li>anything else is shared, not copied</li>
+ * </ul>
+ * Cycles through collections and arrays are reproduced in the copy.  A cycle
+ * that leads back to a DeepCopyable while it is still being copied can't be
+ * reproduced (the copy doesn't exist yet), so the original is shared at that
+ * point.<br>
+ * <br>
+ * A DeepCopier is not thread safe.
+ * 
+ * @author Matt Putnam
+ */
+public class DeepCopier {
+  private static final Object IN_PROGRESS = new Object();
+  
+  private final Map<Object, Object> _copies;
+  
+  /**
+   * Makes a deep copy of the given object with a new DeepCopier
+   * @param object - the object to copy
+   * @return a deep copy of <tt>object</tt>
+   */
+  public static <T> T deepCopy(T object) {
+    return new DeepCopier().copy(object);
+  }
+  
+  /**
+   * Makes deep copies of all of the given objects in parallel.  Each object
+   * is copied with its own DeepCopier, so objects shared between elements of
+   * <tt>list</tt> are copied once per element that refers to them.
+   * @param list - the objects to copy
+   * @return a new list of copies, in the same order as <tt>list</tt>
+   */
+  public static <T> List<T> deepCopyAll(List<? extends T> list) {
+    return list.parallelStream()
+        .map(DeepCopier::<T>deepCopy)
+        .collect(Collectors.toCollection(() -> new ArrayList<>(list.size())));
+  }
+  
+  public DeepCopier() {
+    _copies = new IdentityHashMap<>();
+  }
+  
+  /**
+   * Returns a deep copy of the given object.  Repeated calls on the same
+   * DeepCopier return the same copy for the same object.
+   * @param object - the object to copy
+   * @return a deep copy of <tt>object</tt>, or <tt>object</tt> itself if it
+   * doesn't need copying
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T copy(T object) {
+    if (object == null || isShared(object))
+      return object;
+    
+    final Object existing = _copies.get(object);
+    if (existing == IN_PROGRESS)
+      return object;
+    if (existing != null)
+      return (T) existing;
+    
+    final Object result;
+    if (object instanceof DeepCopyable) {
+      _copies.put(object, IN_PROGRESS);
+      result = ((DeepCopyable<?>) object).deepCopy(this);
+      _copies.put(object, result);
+    } else if (object instanceof Copyable) {
+      result = ((Copyable<?>) object).copy();
+      _copies.put(object, result);
+    } else if (object instanceof Map) {
+      result = copyMap((Map<Object, Object>) object);
+    } else if (object instanceof Collection) {
+      result = copyCollection((Collection<Object>) object);
+    } else if (object.getClass().isArray()) {
+      result = copyArray(object);
+    } else if (object instanceof Number) {
+      result = copyNumber((Number) object);
+      _copies.put(object, result);
+    } else {
+      result = object;
+    }
+    return (T) result;
+  }
+  
+  private static boolean isShared(Object object) {
+    // only the immutable Numbers; subclasses such as AtomicInteger are mutable
+    return object instanceof Immutable ||
+        object instanceof String ||
+        object instanceof Integer ||
+        object instanceof Long ||
+        object instanceof Short ||
+        object instanceof Byte ||
+        object instanceof Double ||
+        object instanceof Float ||
+        object instanceof BigInteger ||
+        object instanceof BigDecimal ||
+        object instanceof Boolean ||
+        object instanceof Character ||
+        object instanceof Enum;
+  }
+  
+  private static Object copyNumber(Number number) {
+    if (number instanceof AtomicInteger)
+      return new AtomicInteger(number.intValue());
+    if (number instanceof AtomicLong)
+      return new AtomicLong(number.longValue());
+    if (number instanceof LongAdder) {
+      final LongAdder result = new LongAdder();
+      result.add(number.longValue());
+      return result;
+    }
+    if (number instanceof DoubleAdder) {
+      final DoubleAdder result = new DoubleAdder();
+      result.add(number.doubleValue());
+      return result;
+    }
+    if (number instanceof MutableInt)
+      return new MutableInt(number);
+    if (number instanceof MutableLong)
+      return new MutableLong(number);
+    if (number instanceof MutableShort)
+      return new MutableShort(number);
+    if (number instanceof MutableByte)
+      return new MutableByte(number);
+    if (number instanceof MutableDouble)
+      return new MutableDouble(number);
+    if (number instanceof MutableFloat)
+      return new MutableFloat(number);
+    
+    // can't be copied without knowing its internals, e.g. LongAccumulator
+    return number;
+  }
+  
+  private Object copyMap(Map<Object, Object> map) {
+    final Map<Object, Object> result;
+    if (map instanceof SortedMap)
+      result = new TreeMap<>(((SortedMap<Object, Object>) map).comparator());
+    else
+      result = new LinkedHashMap<>(Math.max(16, (int) (map.size() / 0.75f) + 1));
+    _copies.put(map, result);
+    
+    for (final Map.Entry<Object, Object> entry : map.entrySet())
+      result.put(copy(entry.getKey()), copy(entry.getValue()));
+    return result;
+  }
+  
+  private Object copyCollection(Collection<Object> collection) {
+    final Collection<Object> result;
+    if (collection instanceof SortedSet)
+      result = new TreeSet<>(((SortedSet<Object>) collection).comparator());
+    else if (collection instanceof Set)
+      result = new LinkedHashSet<>(Math.max(16, (int) (collection.size() / 0.75f) + 1));
+    else if (collection instanceof List)
+      result = new ArrayList<>(collection.size());
+    else
+      return collection;
+    _copies.put(collection, result);
+    
+    for (final Object element : collection)
+      result.add(copy(element));
+    return result;
+  }
+  
+  private Object copyArray(Object array) {
+    final int length = Array.getLength(array);
+    final Class<?> componentType = array.getClass().getComponentType();
+    final Object result = Array.newInstance(componentType, length);
+    _copies.put(array, result);
+    
+    if (componentType.isPrimitive()) {
+      System.arraycopy(array, 0, result, 0, length);
+    } else {
+      final Object[] source = (Object[]) array;
+      final Object[] target = (Object[]) result;
+      for (int i = 0; i < length; ++i)
+        target[i] = copy(source[i]);
+    }
+    return result;
+  }
+}
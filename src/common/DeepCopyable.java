@@ -0,0 +1,22 @@
+package common;
+
+/**
+ * A {@link Copyable} that can copy the objects it refers to as well as
+ * itself.  Implementations should copy each referenced object through the
+ * given {@link DeepCopier}, so that shared references and cycles are
+ * preserved, and may return themselves if every copied reference is
+ * unchanged.
+ * 
+ * @author Matt Putnam
+ *
+ * @param <T>
+ */
+public interface DeepCopyable<T> extends Copyable<T> {
+  /**
+   * Makes a deep copy of this object
+   * @param copier - the copier to copy referenced objects with
+   * @return a deep copy of this object, or this object if nothing it refers
+   * to needed copying
+   */
+  public T deepCopy(DeepCopier copier);
+}
@@ -0,0 +1,235 @@
+package common;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+
+import common.tuple.IntObjPair;
+
+/**
+ * An index of Strings that finds every entry within a given
+ * {@link Utils#levenshteinDistance(String, String) Levenshtein distance} of a
+ * query without comparing the query to every entry.  The index is a BK-tree:
+ * each node's children are keyed by their distance from the node, and the
+ * triangle inequality rules out every child whose key is more than the
+ * search distance away from the query's distance to the node.<br>
+ * <br>
+ * Entries can be added at any time.  Searches take no locks and may run
+ * concurrently with each other and with additions; a search sees every entry
+ * whose addition completed before the search began.
+ * 
+ * @author Matt Putnam
+ */
+public class FuzzyIndex {
+  private static final Node[] NO_CHILDREN = new Node[0];
+  
+  private volatile Node _root;
+  private volatile int _size;
+  
+  /**
+   * Creates a new, empty FuzzyIndex
+   */
+  public FuzzyIndex() {
+  }
+  
+  /**
+   * Creates a new FuzzyIndex containing the given Strings
+   * @param strings - the Strings to add
+   */
+  public FuzzyIndex(Collection<String> strings) {
+    addAll(strings);
+  }
+  
+  /**
+   * @return the number of distinct Strings in this index
+   */
+  public int size() {
+    return _size;
+  }
+  
+  /**
+   * Adds a String to this index
+   * @param string - the String to add
+   * @return <tt>true</tt> if the String was added, <tt>false</tt> if it was
+   * already present
+   */
+  public boolean add(String string) {
+    if (string == null)
+      throw new IllegalArgumentException("Cannot add null to a FuzzyIndex");
+    
+    Node node = _root;
+    if (node == null) {
+      synchronized (this) {
+        if (_root == null) {
+          _root = new Node(string);
+          ++_size;
+          return true;
+        }
+        node = _root;
+      }
+    }
+    
+    while (true) {
+      final int distance = Utils.levenshteinDistance(string, node._value);
+      if (distance == 0)
+        return false;
+      
+      Node child = node.getChild(distance);
+      if (child == null) {
+        synchronized (node) {
+          child = node.getChild(distance);
+          if (child == null) {
+            node.setChild(distance, new Node(string));
+            synchronized (this) {
+              ++_size;
+            }
+            return true;
+          }
+        }
+      }
+      node = child;
+    }
+  }
+  
+  /**
+   * Adds all of the given Strings to this index
+   * @param strings - the Strings to add
+   */
+  public void addAll(Collection<String> strings) {
+    for (final String string : strings)
+      add(string);
+  }
+  
+  /**
+   * @param string - the String to look for
+   * @return <tt>true</tt> if <tt>string</tt> is in this index
+   */
+  public boolean contains(String string) {
+    Node node = _root;
+    while (node != null) {
+      final int distance = Utils.levenshteinDistance(string, node._value);
+      if (distance == 0)
+        return true;
+      node = node.getChild(distance);
+    }
+    return false;
+  }
+  
+  /**
+   * Finds all entries within the given distance of a query
+   * @param query - the String to search for
+   * @param maxDistance - the largest Levenshtein distance to accept
+   * @return the matching entries, closest first
+   */
+  public List<String> search(String query, int maxDistance) {
+    final List<IntObjPair<String>> matches = searchWithDistances(query, maxDistance);
+    final List<String> result = new ArrayList<>(matches.size());
+    for (final IntObjPair<String> match : matches)
+      result.add(match._2());
+    return result;
+  }
+  
+  /**
+   * Finds all entries within the given distance of a query, along with their
+   * distances
+   * @param query - the String to search for
+   * @param maxDistance - the largest Levenshtein distance to accept
+   * @return the matching entries paired with their distances from
+   * <tt>query</tt>, closest first
+   */
+  public List<IntObjPair<String>> searchWithDistances(String query, int maxDistance) {
+    if (maxDistance < 0)
+      throw new IllegalArgumentException("Max distance cannot be negative");
+    
+    final List<IntObjPair<String>> result = new ArrayList<>();
+    final Node root = _root;
+    if (root == null)
+      return result;
+    
+    final Deque<Node> pending = new ArrayDeque<>();
+    pending.push(root);
+    while (!pending.isEmpty()) {
+      final Node node = pending.pop();
+      final int distance = Utils.levenshteinDistance(query, node._value);
+      if (distance <= maxDistance)
+        result.add(IntObjPair.make(distance, node._value));
+      
+      final Node[] children = node._children;
+      // computed in long so that a huge maxDistance can't wrap around
+      final int end = (int) Math.min(children.length - 1L, (long) distance + maxDistance);
+      final int start = (int) Math.max(1L, (long) distance - maxDistance);
+      for (int i = start; i <= end; ++i) {
+        if (children[i] != null)
+          pending.push(children[i]);
+      }
+    }
+    
+    result.sort(Comparator.comparingInt(IntObjPair::_1));
+    return result;
+  }
+  
+  /**
+   * Finds the entry closest to a query
+   * @param query - the String to search for
+   * @return the closest entry, or <tt>null</tt> if this index is empty.  If
+   * several entries are equally close, one of them is returned.
+   */
+  public String closest(String query) {
+    final Node root = _root;
+    if (root == null)
+      return null;
+    
+    Node best = root;
+    int bestDistance = Integer.MAX_VALUE;
+    final Deque<Node> pending = new ArrayDeque<>();
+    pending.push(root);
+    while (!pending.isEmpty()) {
+      final Node node = pending.pop();
+      final int distance = Utils.levenshteinDistance(query, node._value);
+      if (distance < bestDistance) {
+        best = node;
+        bestDistance = distance;
+        if (distance == 0)
+          break;
+      }
+      
+      final Node[] children = node._children;
+      final int end = Math.min(children.length - 1, distance + bestDistance - 1);
+      for (int i = Math.max(1, distance - bestDistance + 1); i <= end; ++i) {
+        if (children[i] != null)
+          pending.push(children[i]);
+      }
+    }
+    return best._value;
+  }
+  
+  private static final class Node {
+    final String _value;
+    
+    // indexed by distance; replaced, never modified, so readers need no lock
+    volatile Node[] _children;
+    
+    Node(String value) {
+      _value = value;
+      _children = NO_CHILDREN;
+    }
+    
+    Node getChild(int distance) {
+      final Node[] children = _children;
+      return distance < children.length ? children[distance] : null;
+    }
+    
+    // callers must hold this node's lock
+    void setChild(int distance, Node child) {
+      final Node[] children = distance < _children.length
+          ? _children.clone()
+          : Arrays.copyOf(_children, distance + 1);
+      children[distance] = child;
+      _children = children;
+    }
+  }
+}
@@ -0,0 +1,12 @@
+package common;
+
+/**
+ * Marker for types whose instances can never change once constructed,
+ * including everything reachable from them.  A {@link Copyable} that is
+ * Immutable may return itself from {@link Copyable#copy()}, and
+ * {@link DeepCopier} shares instances of it rather than copying them.
+ * 
+ * @author Matt Putnam
+ */
+public interface Immutable {
+}
@@ -0,0 +1,222 @@
+package common;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Computes {@link Utils#levenshteinDistance(String, String, int) bounded
+ * Levenshtein distances} between many Strings at once, in parallel on a
+ * ForkJoinPool.  Results are streamed to a {@link DistanceConsumer} as they
+ * are found rather than collected into a matrix, so memory use doesn't grow
+ * with the number of pairs.<br>
+ * <br>
+ * Only pairs within <tt>maxDistance</tt> of each other are reported.  The
+ * Strings are ordered by length up front, so pairs whose lengths differ by
+ * more than <tt>maxDistance</tt> are never even visited, and each worker
+ * thread reuses its own scratch rows for the dynamic programming (rows for
+ * very long Strings are allocated for each such query instead, so that pool
+ * threads don't hold on to them).
+ * 
+ * @author Matt Putnam
+ */
+public final class LevenshteinBatch {
+  private LevenshteinBatch() {}
+  
+  // rows of work handed to a single task
+  private static final int ROWS_PER_TASK = 16;
+  
+  // longest scratch rows kept by a thread between comparisons
+  private static final int MAX_RETAINED_SCRATCH = 4096;
+  
+  private static final ThreadLocal<int[][]> SCRATCH = ThreadLocal.withInitial(() -> new int[2][0]);
+  
+  /**
+   * Receives the distances found by a batch computation.  Called
+   * concurrently from the pool's worker threads, so implementations must be
+   * thread safe.
+   */
+  @FunctionalInterface
+  public interface DistanceConsumer {
+    /**
+     * @param row - the index of the first String (the query)
+     * @param column - the index of the second String (in the corpus)
+     * @param distance - the Levenshtein distance between them
+     */
+    public void accept(int row, int column, int distance);
+  }
+  
+  /**
+   * Finds every pair of Strings in a list within the given distance of each
+   * other, using the common ForkJoinPool
+   * @see #allPairs(List, int, DistanceConsumer, ForkJoinPool)
+   */
+  public static void allPairs(List<String> strings, int maxDistance, DistanceConsumer consumer) {
+    allPairs(strings, maxDistance, consumer, ForkJoinPool.commonPool());
+  }
+  
+  /**
+   * Finds every pair of Strings in a list within the given distance of each
+   * other.  Each unordered pair is reported once, with <tt>row &lt; column</tt>.
+   * Returns when all pairs have been reported.
+   * @param strings - the Strings to compare
+   * @param maxDistance - the largest distance to report
+   * @param consumer - receives each pair's indices and distance
+   * @param pool - the pool to run on
+   */
+  public static void allPairs(List<String> strings, int maxDistance, DistanceConsumer consumer, ForkJoinPool pool) {
+    checkDistance(maxDistance);
+    final Corpus corpus = new Corpus(strings);
+    pool.invoke(new RowTask(corpus, corpus, true, maxDistance, consumer, 0, strings.size()));
+  }
+  
+  /**
+   * Finds, for each query, every String in a corpus within the given
+   * distance of it, using the common ForkJoinPool
+   * @see #queryCorpus(List, List, int, DistanceConsumer, ForkJoinPool)
+   */
+  public static void queryCorpus(List<String> queries, List<String> corpus, int maxDistance, DistanceConsumer consumer) {
+    queryCorpus(queries, corpus, maxDistance, consumer, ForkJoinPool.commonPool());
+  }
+  
+  /**
+   * Finds, for each query, every String in a corpus within the given
+   * distance of it.  Returns when all pairs have been reported.
+   * @param queries - the Strings to look up; reported as the row
+   * @param corpus - the Strings to search; reported as the column
+   * @param maxDistance - the largest distance to report
+   * @param consumer - receives each pair's indices and distance
+   * @param pool - the pool to run on
+   */
+  public static void queryCorpus(List<String> queries, List<String> corpus, int maxDistance,
+      DistanceConsumer consumer, ForkJoinPool pool) {
+    checkDistance(maxDistance);
+    pool.invoke(new RowTask(new Corpus(queries), new Corpus(corpus), false, maxDistance, consumer, 0, queries.size()));
+  }
+  
+  private static void checkDistance(int maxDistance) {
+    if (maxDistance < 0)
+      throw new IllegalArgumentException("Max distance cannot be negative");
+  }
+  
+  private static int[][] scratch(int length) {
+    if (length > MAX_RETAINED_SCRATCH)
+      return new int[2][length];
+    
+    final int[][] rows = SCRATCH.get();
+    if (rows[0].length < length) {
+      rows[0] = new int[length];
+      rows[1] = new int[length];
+    }
+    return rows;
+  }
+  
+  /**
+   * Strings converted to char arrays once, with their indices sorted by
+   * length so that candidates of a given length range can be found by binary
+   * search
+   */
+  private static final class Corpus {
+    final char[][] _chars;
+    final int[] _byLength;
+    final int[] _sortedLengths;
+    
+    Corpus(List<String> strings) {
+      final int size = strings.size();
+      _chars = new char[size][];
+      final long[] keys = new long[size];
+      for (int i = 0; i < size; ++i) {
+        _chars[i] = strings.get(i).toCharArray();
+        keys[i] = ((long) _chars[i].length << 32) | i;
+      }
+      Arrays.sort(keys);
+      
+      _byLength = new int[size];
+      _sortedLengths = new int[size];
+      for (int i = 0; i < size; ++i) {
+        _byLength[i] = (int) keys[i];
+        _sortedLengths[i] = (int) (keys[i] >>> 32);
+      }
+    }
+    
+    // the first position in _byLength whose length is at least the given one
+    int firstWithLength(int length) {
+      int low = 0;
+      int high = _sortedLengths.length;
+      while (low < high) {
+        final int mid = (low + high) >>> 1;
+        if (_sortedLengths[mid] < length)
+          low = mid + 1;
+        else
+          high = mid;
+      }
+      return low;
+    }
+  }
+  
+  private static final class RowTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    
+    private final Corpus _queries;
+    private final Corpus _corpus;
+    private final boolean _symmetric;
+    private final int _maxDistance;
+    private final DistanceConsumer _consumer;
+    private final int _from;
+    private final int _to;
+    
+    RowTask(Corpus queries, Corpus corpus, boolean symmetric, int maxDistance,
+        DistanceConsumer consumer, int from, int to) {
+      _queries = queries;
+      _corpus = corpus;
+      _symmetric = symmetric;
+      _maxDistance = maxDistance;
+      _consumer = consumer;
+      _from = from;
+      _to = to;
+    }
+    
+    @Override
+    protected void compute() {
+      if (_to - _from > ROWS_PER_TASK) {
+        final int mid = (_from + _to) >>> 1;
+        invokeAll(new RowTask(_queries, _corpus, _symmetric, _maxDistance, _consumer, _from, mid),
+                  new RowTask(_queries, _corpus, _symmetric, _maxDistance, _consumer, mid, _to));
+        return;
+      }
+      
+      for (int row = _from; row < _to; ++row)
+        computeRow(row);
+    }
+    
+    private void computeRow(int row) {
+      final char[] query = _queries._chars[row];
+      final int length = query.length;
+      final int lowLength = Math.max(0, length - _maxDistance);
+      final int highLength = length > Integer.MAX_VALUE - _maxDistance ? Integer.MAX_VALUE : length + _maxDistance;
+      
+      final int start = _corpus.firstWithLength(lowLength);
+      final int end = highLength == Integer.MAX_VALUE ? _corpus._byLength.length : _corpus.firstWithLength(highLength + 1);
+      final int[][] rows = scratch(length + 1);
+      
+      for (int k = start; k < end; ++k) {
+        final int column = _corpus._byLength[k];
+        if (_symmetric && column <= row)
+          continue;
+        
+        final char[] candidate = _corpus._chars[column];
+        final int distance;
+        if (Arrays.equals(query, candidate))
+          distance = 0;
+        else if (candidate.length < length)
+          distance = Utils.boundedDistance(candidate, query, _maxDistance, rows[0], rows[1]);
+        else
+          distance = Utils.boundedDistance(query, candidate, _maxDistance, rows[0], rows[1]);
+        
+        if (distance >= 0)
+          _consumer.accept(row, column, distance);
+      }
+    }
+  }
+}
@@ -0,0 +1,183 @@
+package common;
+
+/**
+ * The suffix automaton of a String: the smallest automaton accepting exactly
+ * the substrings of the String.  It has fewer than <tt>2n</tt> states and
+ * <tt>3n</tt> transitions, and is built in linear time.  Each state stands
+ * for a set of substrings that end at the same positions; {@link #length(int)}
+ * is the longest of them and {@link #link(int)} leads to the state of the
+ * longest suffix that ends at more positions.<br>
+ * <br>
+ * Transitions are kept in a single open-addressing hash table keyed by state
+ * and character, so any char is supported without a per-state table.
+ * 
+ * @author Matt Putnam
+ */
+final class SuffixAutomaton {
+  private final int[] _length;
+  private final int[] _link;
+  private final int[] _firstEnd;
+  private final int[] _edgeHead;
+  private final int[] _edgeNext;
+  private final int[] _edgeTarget;
+  private final char[] _edgeChar;
+  private final long[] _keys;
+  private final int[] _slots;
+  private final int _shift;
+  
+  private int _stateCount;
+  private int _edgeCount;
+  
+  SuffixAutomaton(CharSequence string) {
+    final int n = string.length();
+    final int maxStates = 2 * n + 1;
+    final int maxEdges = 3 * n + 1;
+    _length = new int[maxStates];
+    _link = new int[maxStates];
+    _firstEnd = new int[maxStates];
+    _edgeHead = new int[maxStates];
+    _edgeNext = new int[maxEdges];
+    _edgeTarget = new int[maxEdges];
+    _edgeChar = new char[maxEdges];
+    
+    final int bits = Math.max(4, 33 - Integer.numberOfLeadingZeros(maxEdges));
+    _keys = new long[1 << bits];
+    _slots = new int[1 << bits];
+    _shift = 64 - bits;
+    
+    _link[newState(0, -1)] = -1;
+    int last = 0;
+    for (int i = 0; i < n; ++i) {
+      final char c = string.charAt(i);
+      final int current = newState(_length[last] + 1, i);
+      int p = last;
+      while (p != -1 && next(p, c) < 0) {
+        addEdge(p, c, current);
+        p = _link[p];
+      }
+      
+      if (p == -1) {
+        _link[current] = 0;
+      } else {
+        final int q = next(p, c);
+        if (_length[p] + 1 == _length[q]) {
+          _link[current] = q;
+        } else {
+          final int clone = newState(_length[p] + 1, _firstEnd[q]);
+          for (int e = _edgeHead[q]; e >= 0; e = _edgeNext[e])
+            addEdge(clone, _edgeChar[e], _edgeTarget[e]);
+          _link[clone] = _link[q];
+          while (p != -1 && next(p, c) == q) {
+            _edgeTarget[findEdge(p, c)] = clone;
+            p = _link[p];
+          }
+          _link[q] = clone;
+          _link[current] = clone;
+        }
+      }
+      last = current;
+    }
+  }
+  
+  /**
+   * @return the number of states; states are numbered from 0, the initial
+   * state
+   */
+  int stateCount() {
+    return _stateCount;
+  }
+  
+  /**
+   * @return the length of the longest substring represented by the state
+   */
+  int length(int state) {
+    return _length[state];
+  }
+  
+  /**
+   * @return the suffix link of the state, or -1 for the initial state
+   */
+  int link(int state) {
+    return _link[state];
+  }
+  
+  /**
+   * @return the index of the last character of the first occurrence of the
+   * state's substrings
+   */
+  int firstEnd(int state) {
+    return _firstEnd[state];
+  }
+  
+  /**
+   * @return the state reached from <tt>state</tt> on <tt>c</tt>, or -1 if
+   * there is no such transition
+   */
+  int next(int state, char c) {
+    final int edge = findEdge(state, c);
+    return edge < 0 ? -1 : _edgeTarget[edge];
+  }
+  
+  /**
+   * @return the states ordered by increasing {@link #length(int)}, so that
+   * every state comes after its suffix link
+   */
+  int[] statesByLength() {
+    final int[] counts = new int[maxLength() + 2];
+    for (int s = 0; s < _stateCount; ++s)
+      ++counts[_length[s] + 1];
+    for (int i = 1; i < counts.length; ++i)
+      counts[i] += counts[i-1];
+    final int[] result = new int[_stateCount];
+    for (int s = 0; s < _stateCount; ++s)
+      result[counts[_length[s]]++] = s;
+    return result;
+  }
+  
+  private int maxLength() {
+    int result = 0;
+    for (int s = 0; s < _stateCount; ++s)
+      result = Math.max(result, _length[s]);
+    return result;
+  }
+  
+  private int newState(int length, int firstEnd) {
+    final int state = _stateCount++;
+    _length[state] = length;
+    _firstEnd[state] = firstEnd;
+    _edgeHead[state] = -1;
+    return state;
+  }
+  
+  private void addEdge(int state, char c, int target) {
+    final int edge = _edgeCount++;
+    _edgeChar[edge] = c;
+    _edgeTarget[edge] = target;
+    _edgeNext[edge] = _edgeHead[state];
+    _edgeHead[state] = edge;
+    
+    final long key = key(state, c);
+    int slot = slotOf(key);
+    while (_slots[slot] != 0)
+      slot = (slot + 1) & (_slots.length - 1);
+    _keys[slot] = key;
+    _slots[slot] = edge + 1;
+  }
+  
+  private int findEdge(int state, char c) {
+    final long key = key(state, c);
+    for (int slot = slotOf(key); _slots[slot] != 0; slot = (slot + 1) & (_slots.length - 1)) {
+      if (_keys[slot] == key)
+        return _slots[slot] - 1;
+    }
+    return -1;
+  }
+  
+  private static long key(int state, char c) {
+    return ((long) state << 16) | c;
+  }
+  
+  private int slotOf(long key) {
+    return (int) ((key * 0x9E3779B97F4A7C15L) >>> _shift);
+  }
+}
@@ -1,16 +1,38 @@
 package common;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.TreeSet;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
-import org.apache.commons.lang3.math.NumberUtils;
+import common.collection.IntRangeSet;
 
 public final class Utils {
   private Utils() {}
   
+  // don't let a guessed capacity reserve more than this up front
+  private static final int MAX_ESTIMATED_LENGTH = 1 << 24;
+  
+  // renderings of recently seen Strings, most recently used last
+  private static final int HTML_CACHE_SIZE = 256;
+  private static final int HTML_CACHE_MAX_LENGTH = 4096;
+  private static final Map<String, String> HTML_CACHE = new LinkedHashMap<String, String>(HTML_CACHE_SIZE * 2, 0.75f, true) {
+    private static final long serialVersionUID = 1L;
+    
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+      return size() > HTML_CACHE_SIZE;
+    }
+  };
+  
   /**
    * Creates a String by concatenating each item together, separated by
    * a comma and space
@@ -31,13 +53,7 @@ public final class Utils {
    * separated by <tt>delimiter</tt>
    */
   public static String mkString(Iterable<?> i, String delimiter) {
-    final StringBuilder sb = new StringBuilder();
-    for (final Iterator<?> iter = i.iterator(); iter.hasNext();) {
-      sb.append(iter.next());
-      if (iter.hasNext())
-        sb.append(delimiter);
-    }
-    return sb.toString();
+    return mkString(i, "", delimiter, "");
   }
   
   /**
@@ -51,13 +67,149 @@ public final class Utils {
    * separated by <tt>delimiter</tt>, and the <tt>suffix</tt>
    */
   public static String mkString(Iterable<?> i, String prefix, String delimiter, String suffix) {
-    return prefix + mkString(i, delimiter) + suffix;
+    final StringBuilder sb = new StringBuilder(estimateLength(i, prefix, delimiter, suffix));
+    return mkString(sb, i, prefix, delimiter, suffix, null).toString();
+  }
+  
+  /**
+   * Creates a String by formatting each item and concatenating the results
+   * together, separated by the given delimiter
+   * @param i - the Iterable type to write
+   * @param delimiter - the delimiter used to separate values
+   * @param formatter - converts each element to the text to write
+   * @return a String consisting of the formatted elements of <tt>i</tt>
+   * separated by <tt>delimiter</tt>
+   */
+  public static <T> String mkString(Iterable<T> i, String delimiter, Function<? super T, ?> formatter) {
+    return mkString(i, "", delimiter, "", formatter);
+  }
+  
+  /**
+   * Creates a String by formatting each item and concatenating the results
+   * together, separated by the given delimiter, with the given prefix on the
+   * front and suffix on the end.
+   * @param i - the Iterable type to write
+   * @param prefix - a String to add to the front of the result
+   * @param delimiter - the delimiter used to separate values
+   * @param suffix - a String to add to the end of the result
+   * @param formatter - converts each element to the text to write
+   * @return a String consisting of <tt>prefix</tt>, the formatted elements of
+   * <tt>i</tt> separated by <tt>delimiter</tt>, and the <tt>suffix</tt>
+   */
+  public static <T> String mkString(Iterable<T> i, String prefix, String delimiter, String suffix,
+      Function<? super T, ?> formatter) {
+    final StringBuilder sb = new StringBuilder(estimateLength(i, prefix, delimiter, suffix));
+    return mkString(sb, i, prefix, delimiter, suffix, formatter).toString();
+  }
+  
+  /**
+   * Appends each item to the given StringBuilder, separated by the given
+   * delimiter
+   * @param sb - the StringBuilder to append to
+   * @param i - the Iterable type to write
+   * @param delimiter - the delimiter used to separate values
+   * @return <tt>sb</tt>
+   */
+  public static StringBuilder mkString(StringBuilder sb, Iterable<?> i, String delimiter) {
+    return mkString(sb, i, "", delimiter, "", null);
+  }
+  
+  /**
+   * Appends <tt>prefix</tt>, each item separated by the given delimiter, and
+   * <tt>suffix</tt> to the given StringBuilder
+   * @param sb - the StringBuilder to append to
+   * @param i - the Iterable type to write
+   * @param prefix - a String to add before the elements
+   * @param delimiter - the delimiter used to separate values
+   * @param suffix - a String to add after the elements
+   * @param formatter - converts each element to the text to write, or
+   * <tt>null</tt> to write the elements themselves
+   * @return <tt>sb</tt>
+   */
+  public static <T> StringBuilder mkString(StringBuilder sb, Iterable<T> i, String prefix, String delimiter,
+      String suffix, Function<? super T, ?> formatter) {
+    sb.append(prefix);
+    final Iterator<T> iter = i.iterator();
+    if (iter.hasNext()) {
+      while (true) {
+        final T element = iter.next();
+        sb.append(formatter == null ? element : formatter.apply(element));
+        if (!iter.hasNext())
+          break;
+        sb.append(delimiter);
+      }
+    }
+    return sb.append(suffix);
+  }
+  
+  /**
+   * Writes <tt>prefix</tt>, each item separated by the given delimiter, and
+   * <tt>suffix</tt> to the given Appendable, without building an
+   * intermediate String for the whole result
+   * @param out - the Appendable to write to
+   * @param i - the Iterable type to write
+   * @param prefix - a String to write before the elements
+   * @param delimiter - the delimiter used to separate values
+   * @param suffix - a String to write after the elements
+   * @return <tt>out</tt>
+   * @throws IOException if <tt>out</tt> throws one
+   */
+  public static Appendable mkString(Appendable out, Iterable<?> i, String prefix, String delimiter, String suffix)
+      throws IOException {
+    if (out instanceof StringBuilder)
+      return mkString((StringBuilder) out, i, prefix, delimiter, suffix, null);
+    
+    out.append(prefix);
+    final Iterator<?> iter = i.iterator();
+    if (iter.hasNext()) {
+      while (true) {
+        final Object element = iter.next();
+        out.append(element instanceof CharSequence ? (CharSequence) element : String.valueOf(element));
+        if (!iter.hasNext())
+          break;
+        out.append(delimiter);
+      }
+    }
+    return out.append(suffix);
+  }
+  
+  /**
+   * Returns a Collector that formats each element and joins the results as
+   * {@link #mkString(Iterable, String, String, String, Function)} does.
+   * Suitable for parallel streams; partial results are joined in encounter
+   * order.
+   * @param prefix - a String to add to the front of the result
+   * @param delimiter - the delimiter used to separate values
+   * @param suffix - a String to add to the end of the result
+   * @param formatter - converts each element to the text to write
+   * @return a Collector producing the joined String
+   */
+  public static <T> Collector<T, ?, String> mkStringCollector(String prefix, String delimiter, String suffix,
+      Function<? super T, ?> formatter) {
+    return Collectors.mapping(element -> String.valueOf(formatter.apply(element)),
+                              Collectors.joining(delimiter, prefix, suffix));
+  }
+  
+  /**
+   * Guesses the length of a joined String, so the builder rarely needs to
+   * grow.  Only Collections have a known size; other Iterables get the
+   * default capacity.
+   */
+  private static int estimateLength(Iterable<?> i, String prefix, String delimiter, String suffix) {
+    final int fixed = prefix.length() + suffix.length();
+    if (!(i instanceof Collection))
+      return fixed + 16;
+    
+    final long estimate = fixed + (long) ((Collection<?>) i).size() * (delimiter.length() + 8);
+    return (int) Math.min(estimate, MAX_ESTIMATED_LENGTH);
   }
   
   /**
    * Prepares the given String for viewing within a Swing component using HTML.
    * Escapes HTML special characters and wraps the whole thing in an &lt;html&gt;
-   * element.  If the input is empty, returns the empty string.
+   * element.  If the input is empty, returns the empty string.  The result for
+   * recently rendered Strings is cached, since Swing renderers tend to render
+   * the same values over and over.
    * @param string the input String
    * @return an HTML-ready version of the input String
    */
@@ -65,10 +217,86 @@ public final class Utils {
     if (string.isEmpty())
       return string;
     
-    return "<html>" + string.replaceAll("&", "&amp;")
-                            .replaceAll("<", "&lt;")
-                            .replaceAll(">", "&gt;")
-                            .replaceAll("\n", "<br>") + "</html>";
+    final boolean cacheable = string.length() <= HTML_CACHE_MAX_LENGTH;
+    if (cacheable) {
+      synchronized (HTML_CACHE) {
+        final String cached = HTML_CACHE.get(string);
+        if (cached != null)
+          return cached;
+      }
+    }
+    
+    final StringBuilder sb = new StringBuilder(string.length() + string.length() / 8 + 13);
+    renderForSwingHTML(string, sb);
+    final String result = sb.toString();
+    
+    if (cacheable) {
+      synchronized (HTML_CACHE) {
+        HTML_CACHE.put(string, result);
+      }
+    }
+    return result;
+  }
+  
+  /**
+   * Appends the result of {@link #renderForSwingHTML(String)} to the given
+   * StringBuilder in a single pass over the input, without caching
+   * @param string the input String
+   * @param sb the StringBuilder to append to
+   */
+  public static void renderForSwingHTML(String string, StringBuilder sb) {
+    if (string.isEmpty())
+      return;
+    
+    sb.append("<html>");
+    final int length = string.length();
+    int runStart = 0;
+    for (int i = 0; i < length; ++i) {
+      final String replacement = htmlReplacement(string.charAt(i));
+      if (replacement != null) {
+        sb.append(string, runStart, i).append(replacement);
+        runStart = i + 1;
+      }
+    }
+    sb.append(string, runStart, length).append("</html>");
+  }
+  
+  /**
+   * Writes the result of {@link #renderForSwingHTML(String)} to the given
+   * Appendable in a single pass over the input, without caching
+   * @param string the input String
+   * @param out the Appendable to write to
+   * @throws IOException if <tt>out</tt> throws one
+   */
+  public static void renderForSwingHTML(String string, Appendable out) throws IOException {
+    if (out instanceof StringBuilder) {
+      renderForSwingHTML(string, (StringBuilder) out);
+      return;
+    }
+    if (string.isEmpty())
+      return;
+    
+    out.append("<html>");
+    final int length = string.length();
+    int runStart = 0;
+    for (int i = 0; i < length; ++i) {
+      final String replacement = htmlReplacement(string.charAt(i));
+      if (replacement != null) {
+        out.append(string, runStart, i).append(replacement);
+        runStart = i + 1;
+      }
+    }
+    out.append(string, runStart, length).append("</html>");
+  }
+  
+  private static String htmlReplacement(char c) {
+    switch (c) {
+      case '&':  return "&amp;";
+      case '<':  return "&lt;";
+      case '>':  return "&gt;";
+      case '\n': return "<br>";
+      default:   return null;
+    }
   }
   
   /**
@@ -153,29 +381,32 @@ public final class Utils {
    * @see #parseRangeString(String)
    */
   public static String makeRangeString(Collection<Integer> ints) {
-    if (ints.isEmpty())
-      return "";
-    
-    // copy and remove duplicates:
-    final List<Integer> copy = new ArrayList<>(new TreeSet<>(ints));
-    final int size = copy.size();
-    
-    final int[] vals = new int[size]; for (int i = 0; i < size; ++i) vals[i] = copy.get(i).intValue();
-    final int[] diffs = new int[size-1]; for (int i = 0; i < size-1; ++i) diffs[i] = vals[i+1]-vals[i];
-    final StringBuilder sb = new StringBuilder();
-    
-    int i = 0, n, j;
-    while (true) {
-      n = vals[i];
-      for (j = i; j < size-1 && diffs[j] == 1; ++j);
-      sb.append(n);
-      if (i != j) sb.append("-").append(n+j-i);
-      i = j+1;
-      if (i < size) sb.append(", ");
-      else break;
-    }
-    
-    return sb.toString();
+    final int[] vals = new int[ints.size()];
+    int i = 0;
+    for (final Integer value : ints)
+      vals[i++] = value.intValue();
+    return makeRangeString(vals);
+  }
+  
+  /**
+   * Creates a String that sorts and condenses an array of ints, in the same
+   * format as {@link #makeRangeString(Collection)}.  The array is not
+   * modified.
+   * @param ints - the ints to sort and group
+   * @return a String with the ints sorted and grouped
+   */
+  public static String makeRangeString(int[] ints) {
+    return IntRangeSet.of(ints).toString();
+  }
+  
+  /**
+   * Creates a String that sorts and condenses a stream of ints, in the same
+   * format as {@link #makeRangeString(Collection)}
+   * @param ints - the ints to sort and group
+   * @return a String with the ints sorted and grouped
+   */
+  public static String makeRangeString(IntStream ints) {
+    return makeRangeString(ints.toArray());
   }
   
   /**
@@ -186,21 +417,87 @@ public final class Utils {
    * @see #makeRangeString(Collection)
    */
   public static List<Integer> parseRangeString(String string) {
-    final List<Integer> result = new ArrayList<>();
+    final int[] bounds = parseRangeBounds(string);
+    final List<Integer> result = new ArrayList<>(bounds.length / 2);
+    for (int i = 0; i < bounds.length; i += 2)
+      for (int value = bounds[i]; value <= bounds[i+1]; ++value)
+        result.add(Integer.valueOf(value));
+    return result;
+  }
+  
+  /**
+   * Parses a range String as {@link #parseRangeString(String)} does, but
+   * without boxing.  Ranges are expanded lazily as the stream is consumed.
+   * @param string the String to parse
+   * @return the ints represented by <tt>string</tt>, in the order written
+   */
+  public static IntStream parseRangeStringToStream(String string) {
+    final int[] bounds = parseRangeBounds(string);
+    return IntStream.range(0, bounds.length / 2)
+                    .flatMap(i -> bounds[2*i] <= bounds[2*i+1]
+                        ? IntStream.rangeClosed(bounds[2*i], bounds[2*i+1])
+                        : IntStream.empty());
+  }
+  
+  /**
+   * Parses a range String as {@link #parseRangeString(String)} does, but
+   * without boxing
+   * @param string the String to parse
+   * @return the ints represented by <tt>string</tt>, in the order written
+   */
+  public static int[] parseRangeStringToArray(String string) {
+    return parseRangeStringToStream(string).toArray();
+  }
+  
+  /**
+   * Parses a range String into an {@link IntRangeSet} without expanding the
+   * ranges, so "1-1000000" takes no more space than "1"
+   * @param string the String to parse
+   * @return the set of ints represented by <tt>string</tt>
+   */
+  public static IntRangeSet parseRangeSet(String string) {
+    return IntRangeSet.fromRanges(parseRangeBounds(string));
+  }
+  
+  /**
+   * Splits a range String into pairs of inclusive start and end values,
+   * accepting the same input as the original regex-based parser: entries are
+   * separated by commas with optional whitespace, and trailing empty entries
+   * are ignored.  The start of a range may be negative.
+   */
+  private static int[] parseRangeBounds(String string) {
+    int length = string.length();
+    while (length > 0 && (string.charAt(length-1) == ',' || Character.isWhitespace(string.charAt(length-1))))
+      --length;
+    if (length == 0) {
+      if (string.indexOf(',') >= 0)
+        return new int[0];
+      throw new NumberFormatException("For input string: \"" + string + "\"");
+    }
     
-    for (final String token : string.split("\\s*,\\s*")) {
-      final int hyphenIndex = token.indexOf("-");
-      if (hyphenIndex == -1)
-        result.add(Integer.valueOf(token.trim()));
-      else {
-        final int start = Integer.parseInt(token.substring(0, hyphenIndex).trim());
-        final int end = Integer.parseInt(token.substring(hyphenIndex+1).trim());
-        for (int i = start; i <= end; ++i)
-          result.add(Integer.valueOf(i));
+    int[] bounds = new int[16];
+    int count = 0;
+    int tokenStart = 0;
+    while (tokenStart <= length) {
+      int tokenEnd = string.indexOf(',', tokenStart);
+      if (tokenEnd < 0 || tokenEnd > length)
+        tokenEnd = length;
+      final String token = string.substring(tokenStart, tokenEnd).trim();
+      
+      if (count + 2 > bounds.length)
+        bounds = Arrays.copyOf(bounds, bounds.length * 2);
+      final int hyphenIndex = token.indexOf('-', 1);
+      if (hyphenIndex == -1) {
+        bounds[count] = bounds[count+1] = Integer.parseInt(token);
+      } else {
+        bounds[count] = Integer.parseInt(token.substring(0, hyphenIndex).trim());
+        bounds[count+1] = Integer.parseInt(token.substring(hyphenIndex+1).trim());
       }
+      count += 2;
+      tokenStart = tokenEnd + 1;
     }
     
-    return result;
+    return Arrays.copyOf(bounds, count);
   }
   
   /**
@@ -218,81 +515,252 @@ public final class Utils {
    * @return the Levenshtein distance between the two Strings
    */
   public static int levenshteinDistance(String s, String t) {
+    // degenerate cases
+    if (s == t || s.equals(t)) return 0;
+    if (s.isEmpty()) return t.length();
+    if (t.isEmpty()) return s.length();
+    
+    final char[] sChars = s.toCharArray();
+    final char[] tChars = t.toCharArray();
+    
+    // strip the common prefix and suffix, which don't affect the distance
+    int start = 0;
+    int sEnd = sChars.length;
+    int tEnd = tChars.length;
+    while (start < sEnd && start < tEnd && sChars[start] == tChars[start])
+      ++start;
+    while (sEnd > start && tEnd > start && sChars[sEnd-1] == tChars[tEnd-1]) {
+      --sEnd;
+      --tEnd;
+    }
+    if (start == sEnd) return tEnd - start;
+    if (start == tEnd) return sEnd - start;
+    
+    // use the shorter String as the pattern, so there are fewer bit vectors
+    if (sEnd <= tEnd)
+      return myersDistance(sChars, start, sEnd, tChars, start, tEnd);
+    else
+      return myersDistance(tChars, start, tEnd, sChars, start, sEnd);
+  }
+  
+  /**
+   * Computes the Levenshtein distance between two Strings, giving up as soon
+   * as it is known to exceed <tt>maxDistance</tt>.  Only the diagonal band of
+   * width <tt>2*maxDistance+1</tt> is computed, so this is much faster than
+   * {@link #levenshteinDistance(String, String)} when looking for close
+   * matches among long or very different Strings.
+   * @param s the first String
+   * @param t the second String
+   * @param maxDistance the largest distance of interest
+   * @return the Levenshtein distance between the two Strings, or -1 if it is
+   * greater than <tt>maxDistance</tt>
+   */
+  public static int levenshteinDistance(String s, String t, int maxDistance) {
+    if (maxDistance < 0)
+      throw new IllegalArgumentException("Max distance cannot be negative");
+    
     final int sLength = s.length();
     final int tLength = t.length();
-
-    // degenerate cases
+    if (Math.abs(sLength - tLength) > maxDistance) return -1;
     if (s == t || s.equals(t)) return 0;
     if (sLength == 0) return tLength;
     if (tLength == 0) return sLength;
     
+    // make s the shorter String, so the rows are as short as possible
     final char[] sChars = s.toCharArray();
     final char[] tChars = t.toCharArray();
-
-    // create two work vectors of integer distances
-    final int vLength = tLength+1;
-    final int[] v0 = new int[vLength];
-    final int[] v1 = new int[vLength];
+    if (sLength <= tLength)
+      return boundedDistance(sChars, tChars, maxDistance, new int[sLength+1], new int[sLength+1]);
+    else
+      return boundedDistance(tChars, sChars, maxDistance, new int[tLength+1], new int[tLength+1]);
+  }
+  
+  /**
+   * The banded dynamic programming behind
+   * {@link #levenshteinDistance(String, String, int)}.  <tt>sChars</tt> must
+   * be no longer than <tt>tChars</tt>, and both rows must have room for
+   * <tt>sChars.length+1</tt> entries; their contents are overwritten.
+   */
+  static int boundedDistance(char[] sChars, char[] tChars, int maxDistance, int[] previous, int[] current) {
+    final int sLength = sChars.length;
+    final int tLength = tChars.length;
+    if (tLength - sLength > maxDistance) return -1;
+    if (sLength == 0) return tLength;
     
-    int i, j;
-
-    // initialize v0 (the previous row of distances)
-    // this row is A[0][i]: edit distance for an empty s
-    // the distance is just the number of characters to delete from t
-    for (i = 0; i < vLength; ++i)
-      v0[i] = i;
-
-    for (i = 0; i < sLength; ++i) {
-      // calculate v1 (current row distances) from the previous row v0
-
-      // first element of v1 is A[i+1][0]
-      // edit distance is delete (i+1) chars from s to match empty t
-      v1[0] = i + 1;
-
-      // use formula to fill in the rest of the row
-      for (j = 0; j < tLength; ++j) {
-        final int cost = (sChars[i] == tChars[j]) ? 0 : 1;
-        v1[j + 1] = NumberUtils.min(v1[j] + 1, v0[j + 1] + 1, v0[j] + cost);
+    // values larger than max all mean "too far", so cap them at max+1
+    final int max = Math.min(maxDistance, tLength);
+    final int tooFar = max + 1;
+    
+    final int boundary = Math.min(sLength, max) + 1;
+    for (int i = 0; i < boundary; ++i)
+      previous[i] = i;
+    Arrays.fill(previous, boundary, sLength+1, tooFar);
+    Arrays.fill(current, 0, sLength+1, tooFar);
+    
+    for (int j = 1; j <= tLength; ++j) {
+      final char tChar = tChars[j-1];
+      current[0] = j;
+      
+      // only cells within max of the diagonal can be close enough
+      final int min = Math.max(1, j - max);
+      final int maxIndex = Math.min(sLength, j + max);
+      if (min > 1)
+        current[min-1] = tooFar;
+      
+      int rowMin = current[min-1];
+      for (int i = min; i <= maxIndex; ++i) {
+        final int value;
+        if (sChars[i-1] == tChar)
+          value = previous[i-1];
+        else
+          value = Math.min(tooFar, 1 + Math.min(Math.min(current[i-1], previous[i]), previous[i-1]));
+        current[i] = value;
+        if (value < rowMin)
+          rowMin = value;
       }
-
-      // copy v1 (current row) to v0 (previous row) for next iteration
-      for (j = 0; j < vLength; ++j)
-        v0[j] = v1[j];
+      if (maxIndex < sLength)
+        current[maxIndex+1] = tooFar;
+      
+      // every path to the end passes through this row
+      if (rowMin > max)
+        return -1;
+      
+      final int[] tempRow = previous;
+      previous = current;
+      current = tempRow;
     }
-
-    return v1[tLength];
+    
+    return previous[sLength] <= max ? previous[sLength] : -1;
+  }
+  
+  /**
+   * Myers' bit-parallel edit distance (with Hyyr&ouml;'s formulation),
+   * processing the pattern in blocks of 64 characters.  Each column of the
+   * dynamic programming matrix is represented by bit vectors of vertical
+   * deltas, so each character of the text costs a handful of word operations
+   * per block instead of one operation per pattern character.
+   */
+  private static int myersDistance(char[] pattern, int pStart, int pEnd, char[] text, int tStart, int tEnd) {
+    final int m = pEnd - pStart;
+    final int blocks = (m + 63) >>> 6;
+    
+    // map each distinct pattern character to the bit vector of its positions
+    final char[] keys = Arrays.copyOfRange(pattern, pStart, pEnd);
+    Arrays.sort(keys);
+    int keyCount = 0;
+    for (int i = 0; i < m; ++i)
+      if (keyCount == 0 || keys[i] != keys[keyCount-1])
+        keys[keyCount++] = keys[i];
+    final long[] peq = new long[keyCount * blocks];
+    for (int i = 0; i < m; ++i) {
+      final int key = Arrays.binarySearch(keys, 0, keyCount, pattern[pStart+i]);
+      peq[key*blocks + (i >>> 6)] |= 1L << i;
+    }
+    
+    if (blocks == 1) {
+      final long last = 1L << (m - 1);
+      long pv = -1L;
+      long mv = 0L;
+      int score = m;
+      for (int j = tStart; j < tEnd; ++j) {
+        final int key = Arrays.binarySearch(keys, 0, keyCount, text[j]);
+        final long eq = key < 0 ? 0L : peq[key];
+        final long xv = eq | mv;
+        final long xh = (((eq & pv) + pv) ^ pv) | eq;
+        long ph = mv | ~(xh | pv);
+        long mh = pv & xh;
+        if ((ph & last) != 0)
+          ++score;
+        else if ((mh & last) != 0)
+          --score;
+        ph = (ph << 1) | 1L;
+        mh = mh << 1;
+        pv = mh | ~(xv | ph);
+        mv = ph & xv;
+      }
+      return score;
+    }
+    
+    final long[] pvs = new long[blocks];
+    final long[] mvs = new long[blocks];
+    Arrays.fill(pvs, -1L);
+    final long lastBlockHigh = 1L << ((m - 1) & 63);
+    int score = m;
+    for (int j = tStart; j < tEnd; ++j) {
+      final int key = Arrays.binarySearch(keys, 0, keyCount, text[j]);
+      final int offset = key * blocks;
+      
+      // the horizontal delta entering the top of each block; +1 for the first
+      int hin = 1;
+      for (int b = 0; b < blocks; ++b) {
+        final long pv = pvs[b];
+        final long mv = mvs[b];
+        long eq = key < 0 ? 0L : peq[offset + b];
+        final long xv = eq | mv;
+        if (hin < 0)
+          eq |= 1L;
+        final long xh = (((eq & pv) + pv) ^ pv) | eq;
+        long ph = mv | ~(xh | pv);
+        long mh = pv & xh;
+        
+        final long high = b == blocks - 1 ? lastBlockHigh : Long.MIN_VALUE;
+        final int hout = (ph & high) != 0 ? 1 : (mh & high) != 0 ? -1 : 0;
+        
+        ph <<= 1;
+        mh <<= 1;
+        if (hin < 0)
+          mh |= 1L;
+        else if (hin > 0)
+          ph |= 1L;
+        pvs[b] = mh | ~(xv | ph);
+        mvs[b] = ph & xv;
+        hin = hout;
+      }
+      score += hin;
+    }
+    return score;
   }
   
   /**
-   * Returns the longest substring contained in each input String
+   * Returns the longest substring contained in each input String.  If there
+   * are several, the one ending earliest in <tt>s</tt> is returned.  Runs in
+   * time and space linear in the lengths of the Strings, using a suffix
+   * automaton of <tt>t</tt>.
    * @param s the first String
    * @param t the second String
-   * @return the longest common substring of s and t
+   * @return the longest common substring of s and t, or the empty String if
+   * they have no characters in common
    */
   public static String longestCommonSubstring(String s, String t) {
-    final int sLength = s.length();
-    final int tLength = t.length();
+    if (s.isEmpty() || t.isEmpty())
+      return "";
     
-    final char[] sChars = s.toCharArray();
-    final char[] tChars = t.toCharArray();
+    final SuffixAutomaton automaton = new SuffixAutomaton(t);
+    final int sLength = s.length();
     
     int maxLen = 0;
-    int endIndexPlus1 = -1;
-    int[][] L = new int[sLength+1][tLength+1];
- 
-    for (int i = 1; i <= sLength; i++) {
-      for (int j = 1; j <= tLength; j++) {
-        if (sChars[i-1] == tChars[j-1]) {
-          if (i == 1 || j == 1)
-            L[i][j] = 1;
-          else
-            L[i][j] = L[i-1][j-1] + 1;
-          
-          if (L[i][j] > maxLen) {
-            maxLen = L[i][j];
-            endIndexPlus1 = i;
-          }
-        }
+    int endIndexPlus1 = 0;
+    int state = 0;
+    int length = 0;
+    for (int i = 0; i < sLength; ++i) {
+      final char c = s.charAt(i);
+      
+      // fall back to shorter suffixes until one can be extended by c
+      int next;
+      while ((next = automaton.next(state, c)) < 0 && state != 0) {
+        state = automaton.link(state);
+        length = automaton.length(state);
+      }
+      if (next < 0) {
+        length = 0;
+      } else {
+        state = next;
+        ++length;
+      }
+      
+      if (length > maxLen) {
+        maxLen = length;
+        endIndexPlus1 = i + 1;
       }
     }
     
@@ -300,7 +768,10 @@ public final class Utils {
   }
   
   /**
-   * Returns the longest common substring of all given Strings
+   * Returns the longest common substring of all given Strings.  Builds a
+   * suffix automaton of the shortest String and matches every other String
+   * against it, so runs in time linear in the total length and space linear
+   * in the length of the shortest String.
    * @param strings the Strings to process
    * @return the longest common substring of all given Strings
    */
@@ -308,10 +779,71 @@ public final class Utils {
     final int length = strings.length;
     if (length == 0) return "";
     else if (length == 1) return strings[0];
+    else if (length == 2) return longestCommonSubstring(strings[0], strings[1]);
     
-    String lcs = longestCommonSubstring(strings[0], strings[1]);
-    for (int i = 2; i < strings.length; ++i)
-      lcs = longestCommonSubstring(lcs, strings[i]);
-    return lcs;
+    int shortest = 0;
+    for (int i = 1; i < length; ++i)
+      if (strings[i].length() < strings[shortest].length())
+        shortest = i;
+    final String base = strings[shortest];
+    if (base.isEmpty())
+      return "";
+    
+    final SuffixAutomaton automaton = new SuffixAutomaton(base);
+    final int stateCount = automaton.stateCount();
+    final int[] order = automaton.statesByLength();
+    
+    // common[v]: the longest substring of state v common to all Strings so far
+    final int[] common = new int[stateCount];
+    for (int v = 0; v < stateCount; ++v)
+      common[v] = automaton.length(v);
+    final int[] matched = new int[stateCount];
+    
+    for (int i = 0; i < length; ++i) {
+      if (i == shortest)
+        continue;
+      
+      Arrays.fill(matched, 0);
+      final String string = strings[i];
+      int state = 0;
+      int matchLength = 0;
+      for (int j = 0; j < string.length(); ++j) {
+        final char c = string.charAt(j);
+        int next;
+        while ((next = automaton.next(state, c)) < 0 && state != 0) {
+          state = automaton.link(state);
+          matchLength = automaton.length(state);
+        }
+        if (next < 0) {
+          matchLength = 0;
+        } else {
+          state = next;
+          ++matchLength;
+        }
+        if (matchLength > matched[state])
+          matched[state] = matchLength;
+      }
+      
+      // a match in a state is a full match of every state on its suffix path
+      for (int k = stateCount - 1; k > 0; --k) {
+        final int v = order[k];
+        final int link = automaton.link(v);
+        if (matched[v] > 0)
+          matched[link] = automaton.length(link);
+      }
+      for (int v = 0; v < stateCount; ++v)
+        common[v] = Math.min(common[v], matched[v]);
+    }
+    
+    int best = 0;
+    int bestEnd = 0;
+    for (int v = 1; v < stateCount; ++v) {
+      final int end = automaton.firstEnd(v);
+      if (common[v] > best || (common[v] == best && best > 0 && end < bestEnd)) {
+        best = common[v];
+        bestEnd = end;
+      }
+    }
+    return best == 0 ? "" : base.substring(bestEnd - best + 1, bestEnd + 1);
   }
 }
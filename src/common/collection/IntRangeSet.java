@@ -0,0 +1,307 @@
+package common.collection;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * An immutable set of ints stored as sorted, disjoint, non-adjacent ranges,
+ * so that large runs of consecutive values take constant space.  Membership
+ * is tested by binary search over the ranges.  Union and intersection merge
+ * the two range lists in time linear in the number of ranges, not values.<br>
+ * <br>
+ * {@link #toString()} produces the same format as
+ * {@link common.Utils#makeRangeString(java.util.Collection)}, and
+ * {@link common.Utils#parseRangeSet(String)} parses it without expanding the
+ * ranges.
+ * 
+ * @author Matt Putnam
+ */
+public final class IntRangeSet {
+  public static final IntRangeSet EMPTY = new IntRangeSet(new int[0], new int[0]);
+  
+  // inclusive bounds of each range, in increasing order
+  private final int[] _starts;
+  private final int[] _ends;
+  
+  private IntRangeSet(int[] starts, int[] ends) {
+    _starts = starts;
+    _ends = ends;
+  }
+  
+  /**
+   * Creates an IntRangeSet containing the given values
+   * @param values - the values, in any order and possibly with duplicates
+   * @return a new IntRangeSet
+   */
+  public static IntRangeSet of(int... values) {
+    final int[] sorted = values.clone();
+    Arrays.sort(sorted);
+    final Builder builder = new Builder(sorted.length);
+    for (final int value : sorted)
+      builder.add(value, value);
+    return builder.build();
+  }
+  
+  /**
+   * Creates an IntRangeSet containing a single range
+   * @param start - the first value in the range
+   * @param end - the last value in the range, inclusive
+   * @return a new IntRangeSet, empty if <tt>end &lt; start</tt>
+   */
+  public static IntRangeSet range(int start, int end) {
+    return end < start ? EMPTY : new IntRangeSet(new int[] { start }, new int[] { end });
+  }
+  
+  /**
+   * Creates an IntRangeSet from a list of ranges
+   * @param bounds - pairs of inclusive start and end values, in any order and
+   * possibly overlapping.  Ranges with the end before the start are ignored.
+   * @return a new IntRangeSet
+   */
+  public static IntRangeSet fromRanges(int[] bounds) {
+    if (bounds.length % 2 != 0)
+      throw new IllegalArgumentException("Bounds must come in pairs");
+    
+    final int count = bounds.length / 2;
+    final long[] keys = new long[count];
+    for (int i = 0; i < count; ++i)
+      keys[i] = ((long) bounds[2*i] << 32) | i;
+    Arrays.sort(keys);
+    
+    final Builder builder = new Builder(count);
+    for (final long key : keys) {
+      final int i = (int) key;
+      if (bounds[2*i] <= bounds[2*i+1])
+        builder.add(bounds[2*i], bounds[2*i+1]);
+    }
+    return builder.build();
+  }
+  
+  /**
+   * @return the number of values in this set
+   */
+  public long size() {
+    long result = 0;
+    for (int i = 0; i < _starts.length; ++i)
+      result += (long) _ends[i] - _starts[i] + 1;
+    return result;
+  }
+  
+  public boolean isEmpty() {
+    return _starts.length == 0;
+  }
+  
+  /**
+   * @return the number of disjoint ranges in this set
+   */
+  public int getRangeCount() {
+    return _starts.length;
+  }
+  
+  /**
+   * @param index - the index of the range
+   * @return the first value of the range at <tt>index</tt>
+   */
+  public int getRangeStart(int index) {
+    return _starts[index];
+  }
+  
+  /**
+   * @param index - the index of the range
+   * @return the last value of the range at <tt>index</tt>, inclusive
+   */
+  public int getRangeEnd(int index) {
+    return _ends[index];
+  }
+  
+  /**
+   * @param value - the value to look for
+   * @return <tt>true</tt> if this set contains <tt>value</tt>
+   */
+  public boolean contains(int value) {
+    final int index = rangeBefore(value);
+    return index >= 0 && value <= _ends[index];
+  }
+  
+  /**
+   * @param start - the first value of the range
+   * @param end - the last value of the range, inclusive
+   * @return <tt>true</tt> if this set contains every value from
+   * <tt>start</tt> to <tt>end</tt>
+   */
+  public boolean containsRange(int start, int end) {
+    if (end < start)
+      return true;
+    final int index = rangeBefore(start);
+    return index >= 0 && end <= _ends[index];
+  }
+  
+  /**
+   * @param other - another IntRangeSet
+   * @return a set containing the values in either set
+   */
+  public IntRangeSet union(IntRangeSet other) {
+    if (other.isEmpty()) return this;
+    if (isEmpty()) return other;
+    
+    final Builder builder = new Builder(_starts.length + other._starts.length);
+    int i = 0, j = 0;
+    while (i < _starts.length || j < other._starts.length) {
+      if (j == other._starts.length || (i < _starts.length && _starts[i] <= other._starts[j])) {
+        builder.add(_starts[i], _ends[i]);
+        ++i;
+      } else {
+        builder.add(other._starts[j], other._ends[j]);
+        ++j;
+      }
+    }
+    return builder.build();
+  }
+  
+  /**
+   * @param other - another IntRangeSet
+   * @return a set containing the values in both sets
+   */
+  public IntRangeSet intersection(IntRangeSet other) {
+    final Builder builder = new Builder(Math.min(_starts.length, other._starts.length));
+    int i = 0, j = 0;
+    while (i < _starts.length && j < other._starts.length) {
+      final int start = Math.max(_starts[i], other._starts[j]);
+      final int end = Math.min(_ends[i], other._ends[j]);
+      if (start <= end)
+        builder.add(start, end);
+      
+      if (_ends[i] < other._ends[j])
+        ++i;
+      else
+        ++j;
+    }
+    return builder.build();
+  }
+  
+  /**
+   * Passes each value in this set, in increasing order, to the given consumer
+   * @param consumer - the consumer
+   */
+  public void forEach(IntConsumer consumer) {
+    for (int i = 0; i < _starts.length; ++i) {
+      final int end = _ends[i];
+      for (int value = _starts[i]; ; ++value) {
+        consumer.accept(value);
+        if (value == end)
+          break;
+      }
+    }
+  }
+  
+  /**
+   * @return the values in this set, in increasing order
+   */
+  public IntStream stream() {
+    return IntStream.range(0, _starts.length).flatMap(i -> IntStream.rangeClosed(_starts[i], _ends[i]));
+  }
+  
+  /**
+   * @return the values in this set, in increasing order
+   */
+  public int[] toArray() {
+    final long size = size();
+    if (size > Integer.MAX_VALUE - 8)
+      throw new IllegalStateException("Too many values for an array: " + size);
+    
+    final int[] result = new int[(int) size];
+    int index = 0;
+    for (int i = 0; i < _starts.length; ++i) {
+      final int end = _ends[i];
+      for (int value = _starts[i]; ; ++value) {
+        result[index++] = value;
+        if (value == end)
+          break;
+      }
+    }
+    return result;
+  }
+  
+  @Override
+  public boolean equals(Object obj) {
+    if (obj == this)
+      return true;
+    if (!(obj instanceof IntRangeSet))
+      return false;
+    
+    final IntRangeSet other = (IntRangeSet) obj;
+    return Arrays.equals(_starts, other._starts) && Arrays.equals(_ends, other._ends);
+  }
+  
+  @Override
+  public int hashCode() {
+    return 31 * Arrays.hashCode(_starts) + Arrays.hashCode(_ends);
+  }
+  
+  /**
+   * @return the ranges in this set as a comma-delimited list, with ranges of
+   * more than one value written as "start-end", e.g. "1-4, 6"
+   */
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder(_starts.length * 8);
+    for (int i = 0; i < _starts.length; ++i) {
+      if (i > 0) sb.append(", ");
+      sb.append(_starts[i]);
+      if (_ends[i] != _starts[i]) sb.append("-").append(_ends[i]);
+    }
+    return sb.toString();
+  }
+  
+  // the index of the last range starting at or before value, or -1
+  private int rangeBefore(int value) {
+    int low = 0;
+    int high = _starts.length - 1;
+    while (low <= high) {
+      final int mid = (low + high) >>> 1;
+      if (_starts[mid] <= value)
+        low = mid + 1;
+      else
+        high = mid - 1;
+    }
+    return high;
+  }
+  
+  /**
+   * Accumulates ranges given in order of increasing start, merging ranges
+   * that overlap or touch
+   */
+  private static final class Builder {
+    private int[] _starts;
+    private int[] _ends;
+    private int _count;
+    
+    Builder(int capacity) {
+      _starts = new int[Math.max(capacity, 1)];
+      _ends = new int[Math.max(capacity, 1)];
+    }
+    
+    void add(int start, int end) {
+      if (_count > 0 && (long) start <= (long) _ends[_count-1] + 1) {
+        if (end > _ends[_count-1])
+          _ends[_count-1] = end;
+        return;
+      }
+      
+      if (_count == _starts.length) {
+        _starts = Arrays.copyOf(_starts, _count * 2);
+        _ends = Arrays.copyOf(_ends, _count * 2);
+      }
+      _starts[_count] = start;
+      _ends[_count] = end;
+      ++_count;
+    }
+    
+    IntRangeSet build() {
+      if (_count == 0)
+        return EMPTY;
+      return new IntRangeSet(Arrays.copyOf(_starts, _count), Arrays.copyOf(_ends, _count));
+    }
+  }
+}
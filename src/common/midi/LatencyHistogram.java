@@ -0,0 +1,161 @@
+package common.midi;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed size histogram of non-negative long values (typically latencies in
+ * nanoseconds), with logarithmic buckets each split into 32 linear
+ * sub-buckets.  This keeps the relative error of any reported value under
+ * about 3% across the whole range of long while using a fixed, small amount of
+ * memory, in the style of HdrHistogram.<br>
+ * <br>
+ * Recording is lock-free and does not allocate, so it is safe to call from
+ * real-time threads.  Readers see a consistent-enough snapshot for
+ * monitoring, but reads are not atomic with respect to concurrent recording.
+ *
+ * @author Matt Putnam
+ */
+public class LatencyHistogram {
+  private static final int SUB_BUCKET_BITS = 5;
+  private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+  
+  private final AtomicLongArray _counts;
+  private final AtomicLong _totalCount;
+  private final AtomicLong _sum;
+  private final AtomicLong _min;
+  private final AtomicLong _max;
+  
+  /**
+   * Creates a new, empty LatencyHistogram
+   */
+  public LatencyHistogram() {
+    _counts = new AtomicLongArray(BUCKET_COUNT);
+    _totalCount = new AtomicLong();
+    _sum = new AtomicLong();
+    _min = new AtomicLong(Long.MAX_VALUE);
+    _max = new AtomicLong(Long.MIN_VALUE);
+  }
+  
+  /**
+   * Records a value.  Negative values are recorded as 0.
+   * @param value - the value to record
+   */
+  public void record(long value) {
+    final long v = Math.max(value, 0);
+    _counts.incrementAndGet(indexOf(v));
+    _totalCount.incrementAndGet();
+    _sum.addAndGet(v);
+    
+    long current;
+    while (v < (current = _min.get()) && !_min.compareAndSet(current, v));
+    while (v > (current = _max.get()) && !_max.compareAndSet(current, v));
+  }
+  
+  /**
+   * Clears all recorded values
+   */
+  public void reset() {
+    for (int i = 0; i < BUCKET_COUNT; ++i)
+      _counts.set(i, 0);
+    _totalCount.set(0);
+    _sum.set(0);
+    _min.set(Long.MAX_VALUE);
+    _max.set(Long.MIN_VALUE);
+  }
+  
+  /**
+   * @return the number of values recorded
+   */
+  public long getCount() {
+    return _totalCount.get();
+  }
+  
+  /**
+   * @return the smallest value recorded, or 0 if none have been
+   */
+  public long getMin() {
+    return getCount() == 0 ? 0 : _min.get();
+  }
+  
+  /**
+   * @return the largest value recorded, or 0 if none have been
+   */
+  public long getMax() {
+    return getCount() == 0 ? 0 : _max.get();
+  }
+  
+  /**
+   * @return the mean of the values recorded, or 0 if none have been
+   */
+  public double getMean() {
+    final long count = getCount();
+    return count == 0 ? 0 : (double) _sum.get() / count;
+  }
+  
+  /**
+   * @return the standard deviation of the values recorded, estimated from the
+   * bucket midpoints, or 0 if none have been recorded
+   */
+  public double getStdDeviation() {
+    final long count = getCount();
+    if (count == 0)
+      return 0;
+    
+    final double mean = getMean();
+    double sumOfSquares = 0;
+    for (int i = 0; i < BUCKET_COUNT; ++i) {
+      final long bucketCount = _counts.get(i);
+      if (bucketCount != 0) {
+        final double deviation = (lowestValueOf(i) + highestValueOf(i)) / 2.0 - mean;
+        sumOfSquares += deviation * deviation * bucketCount;
+      }
+    }
+    return Math.sqrt(sumOfSquares / count);
+  }
+  
+  /**
+   * Returns the value at the given percentile.  The result is the highest
+   * value that falls in the same bucket as the true percentile value.
+   * @param percentile - the percentile, from 0 to 100
+   * @return the value at <tt>percentile</tt>, or 0 if no values have been
+   * recorded
+   */
+  public long getValueAtPercentile(double percentile) {
+    final long count = getCount();
+    if (count == 0)
+      return 0;
+    
+    final long target = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * count));
+    long seen = 0;
+    for (int i = 0; i < BUCKET_COUNT; ++i) {
+      seen += _counts.get(i);
+      if (seen >= target)
+        return Math.min(highestValueOf(i), getMax());
+    }
+    return getMax();
+  }
+  
+  private static int indexOf(long value) {
+    if (value < SUB_BUCKET_COUNT)
+      return (int) value;
+    final int exponent = 63 - Long.numberOfLeadingZeros(value);
+    final int shift = exponent - SUB_BUCKET_BITS;
+    return ((shift + 1) << SUB_BUCKET_BITS) + (int) ((value >>> shift) - SUB_BUCKET_COUNT);
+  }
+  
+  private static long lowestValueOf(int index) {
+    if (index < SUB_BUCKET_COUNT)
+      return index;
+    final int shift = (index >> SUB_BUCKET_BITS) - 1;
+    return ((long) (SUB_BUCKET_COUNT + (index & (SUB_BUCKET_COUNT - 1)))) << shift;
+  }
+  
+  private static long highestValueOf(int index) {
+    if (index < SUB_BUCKET_COUNT)
+      return index;
+    final int shift = (index >> SUB_BUCKET_BITS) - 1;
+    return lowestValueOf(index) + (1L << shift) - 1;
+  }
+}
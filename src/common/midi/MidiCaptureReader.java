@@ -0,0 +1,152 @@
+package common.midi;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.sound.midi.InvalidMidiDataException;
+import javax.sound.midi.MidiMessage;
+import javax.sound.midi.ShortMessage;
+import javax.sound.midi.SysexMessage;
+
+/**
+ * Reads a capture file written by {@link MidiCaptureRecorder}.  Records are
+ * visited one at a time with {@link #next()}, or the whole capture can be
+ * played back with {@link #replay(MidiMessageSender)}.
+ *
+ * @author Matt Putnam
+ */
+public class MidiCaptureReader implements AutoCloseable {
+  private final RandomAccessFile _file;
+  private final MappedByteBuffer _buffer;
+  
+  private long _timestamp;
+  private int _word;
+  private int _dataPosition;
+  
+  /**
+   * Opens the given capture file
+   * @param file - the capture file to read
+   * @throws IOException if the file can't be read or isn't a capture file
+   */
+  public MidiCaptureReader(File file) throws IOException {
+    _file = new RandomAccessFile(file, "r");
+    try {
+      final FileChannel channel = _file.getChannel();
+      _buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (_buffer.remaining() < MidiCaptureRecorder.HEADER_SIZE ||
+          _buffer.getInt() != MidiCaptureRecorder.MAGIC)
+        throw new IOException("Not a MIDI capture file: " + file);
+      if (_buffer.getInt() != MidiCaptureRecorder.VERSION)
+        throw new IOException("Unsupported MIDI capture file version: " + file);
+    } catch (IOException ioe) {
+      _file.close();
+      throw ioe;
+    }
+  }
+  
+  /**
+   * Returns to the first record.
+   */
+  public void rewind() {
+    _buffer.position(MidiCaptureRecorder.HEADER_SIZE);
+    _word = 0;
+  }
+  
+  /**
+   * Advances to the next record
+   * @return <tt>true</tt> if there is a next record, <tt>false</tt> if the end
+   * of the capture has been reached
+   */
+  public boolean next() {
+    if (_word < 0)
+      _buffer.position(_dataPosition - _word);
+    
+    if (_buffer.remaining() < MidiCaptureRecorder.RECORD_HEADER_SIZE) {
+      _word = 0;
+      return false;
+    }
+    
+    _timestamp = _buffer.getLong();
+    _word = _buffer.getInt();
+    _dataPosition = _buffer.position();
+    return _word != 0;
+  }
+  
+  /**
+   * @return the timestamp of the current record, in microseconds
+   */
+  public long getTimestamp() {
+    return _timestamp;
+  }
+  
+  /**
+   * @return <tt>true</tt> if the current record is a ShortMessage
+   */
+  public boolean isShortMessage() {
+    return _word > 0;
+  }
+  
+  /**
+   * @return the current ShortMessage, packed as by
+   * {@link MidiUtilities#pack(ShortMessage)}
+   * @throws IllegalStateException if the current record isn't a ShortMessage
+   */
+  public int getPackedMessage() {
+    if (_word <= 0)
+      throw new IllegalStateException("Current record is not a ShortMessage");
+    return _word;
+  }
+  
+  /**
+   * @return a new MidiMessage holding the current record
+   * @throws InvalidMidiDataException if the recorded data is invalid
+   */
+  public MidiMessage getMessage() throws InvalidMidiDataException {
+    if (_word > 0) {
+      return new ShortMessage(MidiUtilities.getStatus(_word),
+          MidiUtilities.getData1(_word), MidiUtilities.getData2(_word));
+    } else if (_word < 0) {
+      final byte[] data = new byte[-_word];
+      for (int i = 0; i < data.length; ++i)
+        data[i] = _buffer.get(_dataPosition + i);
+      return new SysexMessage(data, data.length);
+    } else {
+      throw new IllegalStateException("No current record");
+    }
+  }
+  
+  /**
+   * Plays back the capture from the first record, sending each message
+   * through the given sender with the original spacing between messages.
+   * Blocks until playback is complete.
+   * @param sender - the sender to play back to
+   * @throws InvalidMidiDataException if the recorded data is invalid
+   */
+  public void replay(MidiMessageSender sender) throws InvalidMidiDataException {
+    rewind();
+    final long startNanos = System.nanoTime();
+    long firstTimestamp = -1;
+    
+    while (next()) {
+      if (firstTimestamp < 0)
+        firstTimestamp = _timestamp;
+      
+      final long dueNanos = startNanos + TimeUnit.MICROSECONDS.toNanos(_timestamp - firstTimestamp);
+      long wait;
+      while ((wait = dueNanos - System.nanoTime()) > 0)
+        LockSupport.parkNanos(wait);
+      
+      sender.sendMessage(-1, getMessage());
+    }
+  }
+  
+  @Override
+  public void close() throws IOException {
+    _file.close();
+  }
+}
@@ -0,0 +1,151 @@
+package common.midi;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import javax.sound.midi.MidiMessage;
+import javax.sound.midi.Receiver;
+import javax.sound.midi.ShortMessage;
+import javax.sound.midi.SysexMessage;
+
+/**
+ * A Receiver that records incoming MIDI messages into a preallocated,
+ * memory-mapped capture file, for later playback with
+ * {@link MidiCaptureReader}.<br>
+ * <br>
+ * The file starts with an 8 byte header (magic number and version), followed
+ * by one record per message.  Each record is an 8 byte timestamp in
+ * microseconds followed by a 4 byte word.  For ShortMessages the word is the
+ * message packed as by {@link MidiUtilities#pack(ShortMessage)}; for
+ * SysexMessages it is the negated length of the message, followed by the
+ * message bytes.  A word of 0 marks the end of the recorded data.<br>
+ * <br>
+ * Recording a ShortMessage does not allocate.  Messages that aren't
+ * ShortMessages or SysexMessages are ignored.  When the file is full, further
+ * messages are dropped and counted (see {@link #getDroppedCount()}).
+ *
+ * @author Matt Putnam
+ */
+public class MidiCaptureRecorder implements Receiver {
+  static final int MAGIC = 0x4D494452; // "MIDR"
+  static final int VERSION = 1;
+  static final int HEADER_SIZE = 8;
+  static final int RECORD_HEADER_SIZE = 12;
+  
+  private final RandomAccessFile _file;
+  private final MappedByteBuffer _buffer;
+  private final long _startNanos;
+  
+  private long _recordedCount;
+  private long _droppedCount;
+  private boolean _open;
+  
+  /**
+   * Creates a new MidiCaptureRecorder, creating or overwriting the given file
+   * @param file - the capture file to write
+   * @param capacity - the size of the capture file, in bytes
+   * @throws IOException if the file can't be created or mapped
+   */
+  public MidiCaptureRecorder(File file, int capacity) throws IOException {
+    if (capacity < HEADER_SIZE + RECORD_HEADER_SIZE)
+      throw new IllegalArgumentException("Capacity is too small");
+    
+    _file = new RandomAccessFile(file, "rw");
+    try {
+      _file.setLength(0);
+      _file.setLength(capacity);
+      _buffer = _file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    } catch (IOException ioe) {
+      _file.close();
+      throw ioe;
+    }
+    
+    _buffer.putInt(MAGIC);
+    _buffer.putInt(VERSION);
+    _startNanos = System.nanoTime();
+    _open = true;
+  }
+  
+  /**
+   * @return the number of microseconds elapsed since this recorder was
+   * created.  This is the clock used for messages sent with a timestamp of -1.
+   */
+  public long getMicrosecondPosition() {
+    return (System.nanoTime() - _startNanos) / 1000;
+  }
+  
+  /**
+   * @return the number of messages recorded
+   */
+  public synchronized long getRecordedCount() {
+    return _recordedCount;
+  }
+  
+  /**
+   * @return the number of messages dropped because the file was full
+   */
+  public synchronized long getDroppedCount() {
+    return _droppedCount;
+  }
+  
+  /**
+   * Records the given message.
+   * @param message - the message to record
+   * @param timestamp - the timestamp of the message in microseconds, or -1 to
+   * use this recorder's clock
+   */
+  @Override
+  public synchronized void send(MidiMessage message, long timestamp) {
+    if (!_open)
+      throw new IllegalStateException("MidiCaptureRecorder is closed");
+    
+    final long time = timestamp < 0 ? getMicrosecondPosition() : timestamp;
+    if (message instanceof ShortMessage) {
+      if (_buffer.remaining() < RECORD_HEADER_SIZE) {
+        ++_droppedCount;
+        return;
+      }
+      _buffer.putLong(time);
+      _buffer.putInt(MidiUtilities.pack((ShortMessage) message));
+    } else if (message instanceof SysexMessage) {
+      final int length = message.getLength();
+      if (_buffer.remaining() < RECORD_HEADER_SIZE + length) {
+        ++_droppedCount;
+        return;
+      }
+      _buffer.putLong(time);
+      _buffer.putInt(-length);
+      _buffer.put(message.getMessage(), 0, length);
+    } else {
+      return;
+    }
+    ++_recordedCount;
+  }
+  
+  /**
+   * Writes any buffered changes to the capture file.
+   */
+  public synchronized void flush() {
+    _buffer.force();
+  }
+  
+  /**
+   * Flushes and closes the capture file.
+   */
+  @Override
+  public synchronized void close() {
+    if (!_open)
+      return;
+    
+    _open = false;
+    _buffer.force();
+    try {
+      _file.close();
+    } catch (IOException ioe) {
+      ioe.printStackTrace();
+    }
+  }
+}
@@ -0,0 +1,25 @@
+package common.midi;
+
+import javax.sound.midi.MidiDevice;
+
+/**
+ * Listens for MIDI devices appearing and disappearing in a
+ * {@link MidiDeviceRegistry}.
+ * 
+ * @author Matt Putnam
+ */
+public interface MidiDeviceListener {
+  /**
+   * Called when a refresh of the associated MidiDeviceRegistry finds a device
+   * that wasn't present before.
+   * @param device - the new device
+   */
+  public void deviceAdded(MidiDevice device);
+  
+  /**
+   * Called when a refresh of the associated MidiDeviceRegistry no longer finds
+   * a device that was present before.
+   * @param device - the device that was removed
+   */
+  public void deviceRemoved(MidiDevice device);
+}
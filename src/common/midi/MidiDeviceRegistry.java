@@ -0,0 +1,229 @@
+package common.midi;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.sound.midi.MidiDevice;
+import javax.sound.midi.MidiSystem;
+import javax.sound.midi.MidiUnavailableException;
+
+/**
+ * A cached view of the MIDI devices on the system.  Unlike
+ * {@link MidiPortFinder}, which queries {@link MidiSystem} on every call, a
+ * MidiDeviceRegistry enumerates devices only when {@link #refresh()} is
+ * called (or periodically, see {@link #startAutoRefresh(long, TimeUnit)}) and
+ * answers queries from its cache.  Devices are classified as inputs and/or
+ * outputs in the same pass.<br>
+ * <br>
+ * Listeners are notified of added and removed devices on the thread that
+ * performed the refresh.
+ *
+ * @author Matt Putnam
+ */
+public class MidiDeviceRegistry {
+  private static MidiDeviceRegistry _default;
+  
+  private final Map<MidiDevice.Info, MidiDevice> _devices;
+  private final List<MidiDeviceListener> _listeners;
+  
+  private volatile List<MidiDevice> _allDevices;
+  private volatile List<MidiDevice> _inputDevices;
+  private volatile List<MidiDevice> _outputDevices;
+  
+  private ScheduledExecutorService _executor;
+  private ScheduledFuture<?> _refreshTask;
+  
+  /**
+   * @return a shared MidiDeviceRegistry, created and populated on first use
+   */
+  public static synchronized MidiDeviceRegistry getDefault() {
+    if (_default == null)
+      _default = new MidiDeviceRegistry();
+    return _default;
+  }
+  
+  /**
+   * Creates a new MidiDeviceRegistry and populates it
+   */
+  public MidiDeviceRegistry() {
+    _devices = new LinkedHashMap<>();
+    _listeners = new CopyOnWriteArrayList<>();
+    _allDevices = Collections.emptyList();
+    _inputDevices = Collections.emptyList();
+    _outputDevices = Collections.emptyList();
+    refresh();
+  }
+  
+  public void addListener(MidiDeviceListener listener) {
+    _listeners.add(listener);
+  }
+  
+  public void removeListener(MidiDeviceListener listener) {
+    _listeners.remove(listener);
+  }
+  
+  /**
+   * @return all cached devices
+   */
+  public List<MidiDevice> getAllMidiDevices() {
+    return _allDevices;
+  }
+  
+  /**
+   * @return the cached devices that have transmitters
+   */
+  public List<MidiDevice> getInputMidiDevices() {
+    return _inputDevices;
+  }
+  
+  /**
+   * @return the cached devices that have receivers
+   */
+  public List<MidiDevice> getOutputMidiDevices() {
+    return _outputDevices;
+  }
+  
+  public List<MidiDevice.Info> getAllMidiDeviceInfos() {
+    return toInfos(_allDevices);
+  }
+  
+  public List<MidiDevice.Info> getInputMidiDeviceInfos() {
+    return toInfos(_inputDevices);
+  }
+  
+  public List<MidiDevice.Info> getOutputMidiDeviceInfos() {
+    return toInfos(_outputDevices);
+  }
+  
+  /**
+   * Looks up the cached device for the given info
+   * @param info - the device info
+   * @return the device, or <tt>null</tt> if it isn't in the registry
+   */
+  public synchronized MidiDevice getMidiDevice(MidiDevice.Info info) {
+    return _devices.get(info);
+  }
+  
+  /**
+   * Enumerates the devices on the system, updates the cache, and notifies
+   * listeners of any devices that were added or removed.  Devices already in
+   * the cache are reused rather than looked up again.
+   */
+  public void refresh() {
+    final List<MidiDevice> added = new ArrayList<>();
+    final List<MidiDevice> removed = new ArrayList<>();
+    
+    synchronized (this) {
+      final Map<MidiDevice.Info, MidiDevice> found = new LinkedHashMap<>();
+      final List<MidiDevice> all = new ArrayList<>();
+      final List<MidiDevice> inputs = new ArrayList<>();
+      final List<MidiDevice> outputs = new ArrayList<>();
+      
+      for (final MidiDevice.Info info : MidiSystem.getMidiDeviceInfo()) {
+        MidiDevice device = _devices.get(info);
+        if (device == null) {
+          try {
+            device = MidiSystem.getMidiDevice(info);
+          } catch (MidiUnavailableException mue) {
+            // shouldn't happen
+            mue.printStackTrace();
+            continue;
+          }
+          added.add(device);
+        }
+        
+        found.put(info, device);
+        all.add(device);
+        if (device.getMaxTransmitters() != 0)
+          inputs.add(device);
+        if (device.getMaxReceivers() != 0)
+          outputs.add(device);
+      }
+      
+      for (final Map.Entry<MidiDevice.Info, MidiDevice> entry : _devices.entrySet()) {
+        if (!found.containsKey(entry.getKey()))
+          removed.add(entry.getValue());
+      }
+      
+      _devices.clear();
+      _devices.putAll(found);
+      _allDevices = Collections.unmodifiableList(all);
+      _inputDevices = Collections.unmodifiableList(inputs);
+      _outputDevices = Collections.unmodifiableList(outputs);
+    }
+    
+    // a failing listener must not keep the others from hearing about changes
+    for (final MidiDevice device : removed) {
+      for (final MidiDeviceListener listener : _listeners) {
+        try {
+          listener.deviceRemoved(device);
+        } catch (RuntimeException e) {
+          e.printStackTrace();
+        }
+      }
+    }
+    for (final MidiDevice device : added) {
+      for (final MidiDeviceListener listener : _listeners) {
+        try {
+          listener.deviceAdded(device);
+        } catch (RuntimeException e) {
+          e.printStackTrace();
+        }
+      }
+    }
+  }
+  
+  /**
+   * Starts refreshing the registry periodically on a background thread.  If
+   * automatic refreshing is already running, it is restarted with the new
+   * period.  A refresh that fails is reported and does not stop later
+   * refreshes.
+   * @param period - the time between refreshes
+   * @param unit - the unit of <tt>period</tt>
+   */
+  public synchronized void startAutoRefresh(long period, TimeUnit unit) {
+    stopAutoRefresh();
+    if (_executor == null) {
+      _executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        final Thread thread = new Thread(r, "MidiDeviceRegistry");
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+    _refreshTask = _executor.scheduleWithFixedDelay(() -> {
+      // an exception escaping the task would silently cancel all future runs
+      try {
+        refresh();
+      } catch (Exception e) {
+        e.printStackTrace();
+      }
+    }, period, period, unit);
+  }
+  
+  /**
+   * Stops refreshing the registry periodically.  Does nothing if automatic
+   * refreshing isn't running.
+   */
+  public synchronized void stopAutoRefresh() {
+    if (_refreshTask != null) {
+      _refreshTask.cancel(false);
+      _refreshTask = null;
+    }
+  }
+  
+  private static List<MidiDevice.Info> toInfos(List<MidiDevice> devices) {
+    final List<MidiDevice.Info> result = new ArrayList<>(devices.size());
+    for (final MidiDevice device : devices) {
+      result.add(device.getDeviceInfo());
+    }
+    return result;
+  }
+}
@@ -0,0 +1,312 @@
+package common.midi;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import javax.sound.midi.MidiMessage;
+import javax.sound.midi.Receiver;
+import javax.sound.midi.ShortMessage;
+import javax.sound.midi.SysexMessage;
+import javax.sound.midi.Transmitter;
+
+/**
+ * Fans MIDI input out to any number of independent consumers.  The router
+ * receives messages from a Transmitter and publishes them into a fixed size
+ * circular buffer (like {@link common.collection.buffer.FixedSizeBuffer}, the
+ * oldest entries are overwritten when it is full).  Each consumer holds a
+ * {@link Subscription} with its own read position and polls at its own pace,
+ * so a slow consumer never stalls the device thread or other consumers.  A
+ * consumer that falls more than a full buffer behind skips ahead and has the
+ * lost messages added to its overrun count.<br>
+ * <br>
+ * Neither publishing nor polling allocates.  Polling takes no locks.
+ * Publishing is serialized on this router's monitor so that several
+ * Transmitters (or direct callers of {@link #send(MidiMessage, long)}) may
+ * share one router; with a single device thread the lock is uncontended.<br>
+ * <br>
+ * Subscriptions can filter by channel and by command.  Masks are built with
+ * {@link #channels(int...)} and {@link #commands(int...)}.  System messages
+ * (including Sysex) have no channel, are matched by the command
+ * {@link SysexMessage#SYSTEM_EXCLUSIVE}, and are not subject to the channel
+ * mask.
+ *
+ * @author Matt Putnam
+ */
+public class MidiInputRouter implements Receiver {
+  /** Channel mask matching every channel */
+  public static final int ALL_CHANNELS = 0xFFFF;
+  /** Command mask matching every command */
+  public static final int ALL_COMMANDS = 0xFF;
+  
+  private static final int SYSTEM_BIT = 7;
+  private static final long WRITING = -1;
+  
+  private final Transmitter _transmitter;
+  private final int _mask;
+  private final AtomicLongArray _sequences;
+  private final AtomicLongArray _timestamps;
+  private final AtomicLongArray _receivedNanos;
+  private final AtomicIntegerArray _packed;
+  private final AtomicReferenceArray<MidiMessage> _messages;
+  private final AtomicLong _published;
+  
+  /**
+   * Creates a new MidiInputRouter and attaches it to the given Transmitter
+   * @param transmitter - the Transmitter to receive messages from
+   * @param capacity - the number of messages to buffer.  This is rounded up to
+   * a power of two.
+   */
+  public MidiInputRouter(Transmitter transmitter, int capacity) {
+    if (capacity < 1 || capacity > (1 << 30))
+      throw new IllegalArgumentException("Capacity must be between 1 and 2^30");
+    
+    final int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+    _mask = size - 1;
+    _sequences = new AtomicLongArray(size);
+    _timestamps = new AtomicLongArray(size);
+    _receivedNanos = new AtomicLongArray(size);
+    _packed = new AtomicIntegerArray(size);
+    _messages = new AtomicReferenceArray<>(size);
+    _published = new AtomicLong(-1);
+    for (int i = 0; i < size; ++i)
+      _sequences.set(i, WRITING);
+    
+    _transmitter = transmitter;
+    if (_transmitter != null)
+      _transmitter.setReceiver(this);
+  }
+  
+  /**
+   * Builds a channel mask
+   * @param channels - the (zero-based) channels to match
+   * @return a channel mask matching the given channels
+   */
+  public static int channels(int... channels) {
+    int result = 0;
+    for (final int channel : channels)
+      result |= 1 << channel;
+    return result;
+  }
+  
+  /**
+   * Builds a command mask
+   * @param commands - the commands to match, e.g. {@link ShortMessage#NOTE_ON}
+   * @return a command mask matching the given commands
+   */
+  public static int commands(int... commands) {
+    int result = 0;
+    for (final int command : commands)
+      result |= 1 << commandBit(command);
+    return result;
+  }
+  
+  /**
+   * @return the number of messages the buffer holds
+   */
+  public int getCapacity() {
+    return _mask + 1;
+  }
+  
+  /**
+   * @return the total number of messages received
+   */
+  public long getPublishedCount() {
+    return _published.get() + 1;
+  }
+  
+  /**
+   * Creates a Subscription that sees every message received from now on
+   * @return a new Subscription
+   */
+  public Subscription subscribe() {
+    return subscribe(ALL_CHANNELS, ALL_COMMANDS);
+  }
+  
+  /**
+   * Creates a filtered Subscription that sees matching messages received from
+   * now on
+   * @param channelMask - the channels to match, see {@link #channels(int...)}
+   * @param commandMask - the commands to match, see {@link #commands(int...)}
+   * @return a new Subscription
+   */
+  public Subscription subscribe(int channelMask, int commandMask) {
+    return new Subscription(channelMask, commandMask);
+  }
+  
+  /**
+   * Publishes a message to all Subscriptions.  Calls are serialized, so this
+   * may be called from several threads.
+   * @param message - the message received
+   * @param timestamp - the message's timestamp, or -1 if not known
+   */
+  @Override
+  public synchronized void send(MidiMessage message, long timestamp) {
+    final long sequence = _published.get() + 1;
+    final int slot = (int) sequence & _mask;
+    
+    _sequences.set(slot, WRITING);
+    _timestamps.set(slot, timestamp);
+    _receivedNanos.set(slot, System.nanoTime());
+    _packed.set(slot, message instanceof ShortMessage
+        ? MidiUtilities.pack((ShortMessage) message)
+        : MidiUtilities.pack(SysexMessage.SYSTEM_EXCLUSIVE, 0, 0));
+    _messages.set(slot, message);
+    _sequences.set(slot, sequence);
+    _published.set(sequence);
+  }
+  
+  /**
+   * Detaches this router from its Transmitter.  Existing Subscriptions can
+   * still poll messages that were already received.
+   */
+  @Override
+  public void close() {
+    if (_transmitter != null && _transmitter.getReceiver() == this)
+      _transmitter.setReceiver(null);
+  }
+  
+  private static int commandBit(int command) {
+    return command >= SysexMessage.SYSTEM_EXCLUSIVE ? SYSTEM_BIT : (command >> 4) - 8;
+  }
+  
+  /**
+   * Receives messages polled from a {@link Subscription}.
+   */
+  @FunctionalInterface
+  public interface MessageHandler {
+    /**
+     * Handles one message
+     * @param message - the message as received from the Transmitter
+     * @param packed - the message packed as by
+     * {@link MidiUtilities#pack(ShortMessage)}, for allocation-free decoding.
+     * For messages that aren't ShortMessages only the status is set, to
+     * {@link SysexMessage#SYSTEM_EXCLUSIVE}.
+     * @param timestamp - the timestamp the message was received with
+     */
+    public void handle(MidiMessage message, int packed, long timestamp);
+  }
+  
+  /**
+   * One consumer's view of a {@link MidiInputRouter}.  A Subscription must
+   * only be polled by one thread at a time.
+   */
+  public final class Subscription {
+    private final int _channelMask;
+    private final int _commandMask;
+    
+    private long _next;
+    private volatile long _overrunCount;
+    private volatile MidiLatencyMonitor _monitor;
+    
+    Subscription(int channelMask, int commandMask) {
+      _channelMask = channelMask;
+      _commandMask = commandMask;
+      _next = _published.get() + 1;
+    }
+    
+    /**
+     * @return the number of messages this subscription missed because it fell
+     * too far behind
+     */
+    public long getOverrunCount() {
+      return _overrunCount;
+    }
+    
+    public MidiLatencyMonitor getMonitor() {
+      return _monitor;
+    }
+    
+    /**
+     * Attaches a monitor that records, for each message handled, the time
+     * from when the router received it until it was handed to the handler
+     * @param monitor - the monitor, or <tt>null</tt> to stop monitoring
+     */
+    public void setMonitor(MidiLatencyMonitor monitor) {
+      _monitor = monitor;
+    }
+    
+    /**
+     * @return the number of messages waiting to be polled, before filtering
+     */
+    public long getBacklog() {
+      return Math.min(_published.get() + 1 - _next, getCapacity());
+    }
+    
+    /**
+     * Hands all waiting messages that match this subscription's filters to
+     * the given handler
+     * @param handler - the handler
+     * @return the number of messages handled
+     */
+    public int poll(MessageHandler handler) {
+      return poll(handler, Integer.MAX_VALUE);
+    }
+    
+    /**
+     * Hands up to <tt>max</tt> waiting messages that match this subscription's
+     * filters to the given handler
+     * @param handler - the handler
+     * @param max - the maximum number of messages to handle
+     * @return the number of messages handled
+     */
+    public int poll(MessageHandler handler, int max) {
+      int handled = 0;
+      while (handled < max) {
+        final long published = _published.get();
+        if (_next > published)
+          break;
+        
+        if (published - _next > _mask) {
+          skipTo(published - _mask);
+          continue;
+        }
+        
+        final int slot = (int) _next & _mask;
+        final long before = _sequences.get(slot);
+        final long timestamp = _timestamps.get(slot);
+        final long receivedNanos = _receivedNanos.get(slot);
+        final int packed = _packed.get(slot);
+        final MidiMessage message = _messages.get(slot);
+        final long after = _sequences.get(slot);
+        if (before != _next || after != _next) {
+          // overwritten while reading
+          skipTo(_published.get() - _mask);
+          continue;
+        }
+        
+        ++_next;
+        if (matches(packed)) {
+          final MidiLatencyMonitor monitor = _monitor;
+          if (monitor != null)
+            monitor.recordLatency(System.nanoTime() - receivedNanos);
+          handler.handle(message, packed, timestamp);
+          ++handled;
+        }
+      }
+      return handled;
+    }
+    
+    private void skipTo(long sequence) {
+      if (sequence > _next) {
+        _overrunCount += sequence - _next;
+        _next = sequence;
+      } else {
+        // the slot we wanted is being overwritten right now
+        ++_overrunCount;
+        ++_next;
+      }
+    }
+    
+    private boolean matches(int packed) {
+      final int command = MidiUtilities.getStatus(packed) >= SysexMessage.SYSTEM_EXCLUSIVE
+          ? SysexMessage.SYSTEM_EXCLUSIVE
+          : MidiUtilities.getCommand(packed);
+      if ((_commandMask & (1 << commandBit(command))) == 0)
+        return false;
+      return command == SysexMessage.SYSTEM_EXCLUSIVE ||
+          (_channelMask & (1 << MidiUtilities.getChannel(packed))) != 0;
+    }
+  }
+}
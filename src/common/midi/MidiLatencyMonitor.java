@@ -0,0 +1,119 @@
+package common.midi;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects latency, jitter and throughput statistics for one MIDI device or
+ * stream.  A monitor can be attached to a {@link MidiOutputQueue} (measuring
+ * the time from when each message was due until it was handed to the device,
+ * and how long the device's Receiver blocked) or to a
+ * {@link MidiInputRouter.Subscription} (measuring the time from when each
+ * message was received until the subscriber handled it).<br>
+ * <br>
+ * All times are in nanoseconds.  Recording is lock-free and does not
+ * allocate.
+ *
+ * @author Matt Putnam
+ */
+public class MidiLatencyMonitor {
+  private final String _name;
+  private final LatencyHistogram _latency;
+  private final LatencyHistogram _sendTime;
+  private final AtomicLong _startNanos;
+  
+  /**
+   * Creates a new MidiLatencyMonitor
+   * @param name - a name for the device or stream being monitored
+   */
+  public MidiLatencyMonitor(String name) {
+    _name = name;
+    _latency = new LatencyHistogram();
+    _sendTime = new LatencyHistogram();
+    _startNanos = new AtomicLong(System.nanoTime());
+  }
+  
+  public String getName() {
+    return _name;
+  }
+  
+  /**
+   * @return the histogram of latencies
+   */
+  public LatencyHistogram getLatency() {
+    return _latency;
+  }
+  
+  /**
+   * @return the histogram of time spent blocked sending to the device.  This
+   * is only recorded for output.
+   */
+  public LatencyHistogram getSendTime() {
+    return _sendTime;
+  }
+  
+  /**
+   * Records the latency of one message
+   * @param nanos - the latency in nanoseconds
+   */
+  public void recordLatency(long nanos) {
+    _latency.record(nanos);
+  }
+  
+  /**
+   * Records the time spent blocked sending one message to the device
+   * @param nanos - the send time in nanoseconds
+   */
+  public void recordSendTime(long nanos) {
+    _sendTime.record(nanos);
+  }
+  
+  /**
+   * @param percentile - the percentile, from 0 to 100
+   * @return the latency at the given percentile, in nanoseconds
+   */
+  public long getLatencyAtPercentile(double percentile) {
+    return _latency.getValueAtPercentile(percentile);
+  }
+  
+  /**
+   * @return the jitter, measured as the standard deviation of the latency, in
+   * nanoseconds
+   */
+  public double getJitter() {
+    return _latency.getStdDeviation();
+  }
+  
+  /**
+   * @return the number of messages recorded per second since this monitor was
+   * created or last reset
+   */
+  public double getThroughput() {
+    final long elapsed = System.nanoTime() - _startNanos.get();
+    return elapsed <= 0 ? 0 : _latency.getCount() * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+  }
+  
+  /**
+   * Clears all statistics
+   */
+  public void reset() {
+    _latency.reset();
+    _sendTime.reset();
+    _startNanos.set(System.nanoTime());
+  }
+  
+  @Override
+  public String toString() {
+    return _name + ": " + _latency.getCount() + " msgs, " +
+        String.format("%.1f msgs/s", Double.valueOf(getThroughput())) +
+        ", latency p50=" + toMicros(getLatencyAtPercentile(50)) +
+        "us p99=" + toMicros(getLatencyAtPercentile(99)) +
+        "us max=" + toMicros(_latency.getMax()) +
+        "us, jitter=" + toMicros((long) getJitter()) +
+        "us, send p99=" + toMicros(_sendTime.getValueAtPercentile(99)) + "us";
+  }
+  
+  private static long toMicros(long nanos) {
+    return TimeUnit.NANOSECONDS.toMicros(nanos);
+  }
+}
@@ -1,12 +1,15 @@
 package common.midi;
 
 import javax.sound.midi.InvalidMidiDataException;
+import javax.sound.midi.MidiMessage;
 import javax.sound.midi.Receiver;
 import javax.sound.midi.ShortMessage;
 import javax.sound.midi.SysexMessage;
 
 /**
- * Utility class for sending common MIDI messages.
+ * Utility class for sending common MIDI messages.  Sends are passed directly
+ * to the Receiver; to keep callers from blocking on the device and to honor
+ * timestamps, wrap the device's Receiver in a {@link MidiOutputQueue}.
  * 
  * @author Matt Putnam
  */
@@ -31,10 +34,23 @@ public class MidiMessageSender {
     return _valid;
   }
   
+  /**
+   * Sends the given message as-is.
+   * @param timestamp - the timestamp for the MIDI message, or -1 for
+   * immediate delivery (see {@link MidiOutputQueue})
+   * @param message - the message to send
+   */
+  public void sendMessage(long timestamp, MidiMessage message) {
+    if (!isValid())
+      return;
+    
+    getReceiver().send(message, timestamp);
+  }
+  
   /**
    * Sends a NOTE ON message with the given information.
-   * @param timestamp - the timestamp for the MIDI message (unused for
-   * real-time MIDI)
+   * @param timestamp - the timestamp for the MIDI message, or -1 for
+   * immediate delivery (see {@link MidiOutputQueue})
    * @param channel - the MIDI channel on which to send the message
    * @param midinumber - the MIDI number of the note to send
    * @param velocity - the velocity of the note
@@ -55,8 +71,8 @@ public class MidiMessageSender {
   /**
    * Sends a NOTE OFF message with the given information.  This method uses
    * the NOTE OFF command (some devices may send a NOTE ON with velocity=0)
-   * @param timestamp - the timestamp for the MIDI message (unused for
-   * real-time MIDI)
+   * @param timestamp - the timestamp for the MIDI message, or -1 for
+   * immediate delivery (see {@link MidiOutputQueue})
    * @param channel - the MIDI channel on which to send the message
    * @param midinumber - the MIDI number of the note to send
    * @throws InvalidMidiDataException if an error occurs setting the message
@@ -74,8 +90,8 @@ public class MidiMessageSender {
   
   /**
    * Sends an ALL NOTES OFF message to the given channel.
-   * @param timestamp timestamp - the timestamp for the MIDI message (unused for
-   * real-time MIDI)
+   * @param timestamp - the timestamp for the MIDI message, or -1 for
+   * immediate delivery (see {@link MidiOutputQueue})
    * @param channel - the MIDI channel on which to send the message
    * @throws InvalidMidiDataException if an error occurs setting the message
    * data
@@ -91,8 +107,8 @@ public class MidiMessageSender {
   
   /**
    * Sends an ALL NOTES OFF message to all MIDI channels.
-   * @param timestamp - the timestamp for the MIDI message (unused for
-   * real-time MIDI)
+   * @param timestamp - the timestamp for the MIDI message, or -1 for
+   * immediate delivery (see {@link MidiOutputQueue})
    * @throws InvalidMidiDataException if an error occurs setting the message
    * data
    */
@@ -106,8 +122,8 @@ public class MidiMessageSender {
   
   /**
    * Sends a Sysex message with the given data.
-   * @param timestamp - the timestamp for the MIDI message (unused for
-   * real-time MIDI)
+   * @param timestamp - the timestamp for the MIDI message, or -1 for
+   * immediate delivery (see {@link MidiOutputQueue})
    * @param data - the series of bytes in the Sysex message
    * @throws InvalidMidiDataException if an error occurs setting the message
    * data
@@ -123,8 +139,8 @@ public class MidiMessageSender {
   
   /**
    * Sends a Sysex message with the given data.
-   * @param timestamp - the timestamp for the MIDI message (unused for
-   * real-time MIDI)
+   * @param timestamp - the timestamp for the MIDI message, or -1 for
+   * immediate delivery (see {@link MidiOutputQueue})
    * @param data - the series of bytes in the Sysex message.  These values
    * should be byte-sized, the use of the int data type is only for
    * convenience from the caller's end.
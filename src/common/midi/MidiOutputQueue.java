@@ -0,0 +1,170 @@
+package common.midi;
+
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.sound.midi.MidiMessage;
+import javax.sound.midi.Receiver;
+
+/**
+ * A Receiver that decouples producers from a (possibly slow) output device.
+ * Messages passed to {@link #send(MidiMessage, long)} are placed on a
+ * lock-free queue and delivered to the wrapped Receiver by a dedicated
+ * high-priority thread, so the caller never blocks on the device.<br>
+ * <br>
+ * Timestamps are in microseconds relative to the queue's own clock (see
+ * {@link #getMicrosecondPosition()}).  A timestamp of -1 means "as soon as
+ * possible".  Messages are delivered in timestamp order; messages with equal
+ * timestamps are delivered in the order they were sent.  Everything that is
+ * due when the sender thread wakes up is delivered in a single burst.<br>
+ * <br>
+ * Typical usage:
+ * <pre>
+ *   new MidiMessageSender(new MidiOutputQueue(device.getReceiver()))
+ * </pre>
+ *
+ * @author Matt Putnam
+ */
+public class MidiOutputQueue implements Receiver {
+  private final Receiver _target;
+  private final Queue<Entry> _incoming;
+  private final Thread _thread;
+  private final long _startNanos;
+  
+  private volatile boolean _running;
+  private volatile MidiLatencyMonitor _monitor;
+  
+  /**
+   * Creates a new MidiOutputQueue delivering to the given Receiver, and starts
+   * its sender thread
+   * @param target - the Receiver to deliver messages to
+   */
+  public MidiOutputQueue(Receiver target) {
+    if (target == null)
+      throw new IllegalArgumentException("Target receiver cannot be null");
+    
+    _target = target;
+    _incoming = new ConcurrentLinkedQueue<>();
+    _startNanos = System.nanoTime();
+    _running = true;
+    
+    _thread = new Thread(this::runLoop, "MidiOutputQueue");
+    _thread.setDaemon(true);
+    _thread.setPriority(Thread.MAX_PRIORITY);
+    _thread.start();
+  }
+  
+  /**
+   * @return the Receiver that messages are delivered to
+   */
+  public Receiver getTarget() {
+    return _target;
+  }
+  
+  public MidiLatencyMonitor getMonitor() {
+    return _monitor;
+  }
+  
+  /**
+   * Attaches a monitor that records, for each message, the time from when it
+   * was due until it was handed to the target, and how long the target's
+   * send method took
+   * @param monitor - the monitor, or <tt>null</tt> to stop monitoring
+   */
+  public void setMonitor(MidiLatencyMonitor monitor) {
+    _monitor = monitor;
+  }
+  
+  /**
+   * @return the number of microseconds elapsed on this queue's clock, for use
+   * in computing timestamps for {@link #send(MidiMessage, long)}
+   */
+  public long getMicrosecondPosition() {
+    return (System.nanoTime() - _startNanos) / 1000;
+  }
+  
+  /**
+   * Queues the given message for delivery.  This method never blocks.
+   * @param message - the message to send
+   * @param timestamp - the time, in microseconds on this queue's clock, at
+   * which to deliver the message, or -1 to deliver it as soon as possible
+   */
+  @Override
+  public void send(MidiMessage message, long timestamp) {
+    if (!_running)
+      throw new IllegalStateException("MidiOutputQueue is closed");
+    
+    final long due = timestamp < 0 ? getMicrosecondPosition() : timestamp;
+    _incoming.offer(new Entry(message, due));
+    LockSupport.unpark(_thread);
+  }
+  
+  /**
+   * Stops the sender thread.  Messages that have not yet been delivered are
+   * discarded.  The target Receiver is not closed.
+   */
+  @Override
+  public void close() {
+    _running = false;
+    LockSupport.unpark(_thread);
+  }
+  
+  private void runLoop() {
+    final PriorityQueue<Entry> scheduled = new PriorityQueue<>();
+    long sequence = 0;
+    
+    while (_running) {
+      Entry entry;
+      while ((entry = _incoming.poll()) != null) {
+        entry._sequence = sequence++;
+        scheduled.add(entry);
+      }
+      
+      final long now = getMicrosecondPosition();
+      while ((entry = scheduled.peek()) != null && entry._timestamp <= now) {
+        scheduled.poll();
+        final MidiLatencyMonitor monitor = _monitor;
+        final long sendStart = monitor == null ? 0 : System.nanoTime();
+        try {
+          _target.send(entry._message, -1);
+        } catch (RuntimeException e) {
+          e.printStackTrace();
+        }
+        if (monitor != null) {
+          monitor.recordLatency(sendStart - _startNanos - TimeUnit.MICROSECONDS.toNanos(entry._timestamp));
+          monitor.recordSendTime(System.nanoTime() - sendStart);
+        }
+      }
+      
+      if (!_incoming.isEmpty())
+        continue;
+      
+      if (entry == null)
+        LockSupport.park(this);
+      else
+        LockSupport.parkNanos(this, TimeUnit.MICROSECONDS.toNanos(entry._timestamp - now));
+    }
+    
+    _incoming.clear();
+  }
+  
+  private static final class Entry implements Comparable<Entry> {
+    final MidiMessage _message;
+    final long _timestamp;
+    long _sequence;
+    
+    Entry(MidiMessage message, long timestamp) {
+      _message = message;
+      _timestamp = timestamp;
+    }
+    
+    @Override
+    public int compareTo(Entry other) {
+      final int temp = Long.compare(_timestamp, other._timestamp);
+      return temp != 0 ? temp : Long.compare(_sequence, other._sequence);
+    }
+  }
+}
@@ -8,7 +8,13 @@ import javax.sound.midi.MidiDevice;
 import javax.sound.midi.MidiSystem;
 import javax.sound.midi.MidiUnavailableException;
 
-
+/**
+ * Static utilities for finding MIDI devices.  Each call queries
+ * {@link MidiSystem} directly; callers that query frequently should use a
+ * {@link MidiDeviceRegistry} instead.
+ * 
+ * @author Matt Putnam
+ */
 public final class MidiPortFinder {
   private MidiPortFinder() {}
   
@@ -0,0 +1,323 @@
+package common.midi;
+
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.sound.midi.InvalidMidiDataException;
+import javax.sound.midi.MidiMessage;
+import javax.sound.midi.Receiver;
+import javax.sound.midi.ShortMessage;
+
+/**
+ * A Receiver that sits in front of another Receiver and drops outgoing
+ * Control Change and Pitch Bend messages that would not change the state of
+ * the receiving device.  This is intended to save bandwidth on slow hardware
+ * MIDI links.  All other messages, including channel mode messages
+ * (controllers 120-127), are passed through unchanged.<br>
+ * <br>
+ * Data Entry and Data Increment/Decrement (controllers 6, 38, 96 and 97) act
+ * on the currently selected RPN or NRPN, so they are never dropped or
+ * thinned.  Parameter number selections (controllers 98-101) are never
+ * thinned, and selecting an RPN forgets the last NRPN sent and vice versa.
+ * Reset All Controllers (controller 121) forgets everything sent on its
+ * channel, and System Reset forgets everything.<br>
+ * <br>
+ * Optionally, the filter can "thin" high-rate streams: if a thinning interval
+ * is set, at most one value per controller (or pitch bend wheel) per channel
+ * is sent within the interval.  The most recent suppressed value is held and
+ * sent with the next message for that controller that falls outside the
+ * interval, or by a shared background thread once the interval since the
+ * last value sent for that controller has passed, or immediately when
+ * {@link #flush()} is called.  The target Receiver must therefore accept
+ * messages from that thread.  Timestamps passed to
+ * {@link #send(MidiMessage, long)} are used as the clock for thinning, so they
+ * must either all come from one clock or all be -1 (in which case the system
+ * clock is used).  The background thread follows the caller's clock by
+ * assuming it runs at the same rate as the system clock.
+ *
+ * @author Matt Putnam
+ */
+public class MidiRedundancyFilter implements Receiver {
+  private static final int CHANNELS = 16;
+  private static final int CONTROLLERS = 128;
+  private static final int FIRST_MODE_CONTROLLER = 120;
+  private static final int RESET_ALL_CONTROLLERS = 121;
+  private static final int DATA_ENTRY_MSB = 6;
+  private static final int DATA_ENTRY_LSB = 38;
+  private static final int DATA_INCREMENT = 96;
+  private static final int DATA_DECREMENT = 97;
+  private static final int NRPN_LSB = 98;
+  private static final int NRPN_MSB = 99;
+  private static final int RPN_LSB = 100;
+  private static final int RPN_MSB = 101;
+  private static final int PITCH_BEND = CONTROLLERS;
+  private static final int SLOTS = CONTROLLERS + 1;
+  private static final int NONE = -1;
+  
+  private final Receiver _target;
+  
+  private final int[] _lastSent;
+  private final long[] _lastSentTime;
+  private final int[] _pending;
+  
+  private long _thinInterval;
+  private long _clockOffset;
+  private ScheduledFuture<?> _flushTask;
+  private long _flushDue;
+  
+  /**
+   * Creates a new MidiRedundancyFilter delivering to the given Receiver, with
+   * thinning disabled
+   * @param target - the Receiver to deliver messages to
+   */
+  public MidiRedundancyFilter(Receiver target) {
+    this(target, 0);
+  }
+  
+  /**
+   * Creates a new MidiRedundancyFilter delivering to the given Receiver
+   * @param target - the Receiver to deliver messages to
+   * @param thinInterval - the minimum time, in microseconds, between values
+   * sent for any one controller, or 0 to disable thinning
+   */
+  public MidiRedundancyFilter(Receiver target, long thinInterval) {
+    if (target == null)
+      throw new IllegalArgumentException("Target receiver cannot be null");
+    
+    _target = target;
+    _lastSent = new int[CHANNELS * SLOTS];
+    _lastSentTime = new long[CHANNELS * SLOTS];
+    _pending = new int[CHANNELS * SLOTS];
+    setThinInterval(thinInterval);
+    reset();
+  }
+  
+  /**
+   * @return the Receiver that messages are delivered to
+   */
+  public Receiver getTarget() {
+    return _target;
+  }
+  
+  /**
+   * @return the minimum time, in microseconds, between values sent for any
+   * one controller, or 0 if thinning is disabled
+   */
+  public synchronized long getThinInterval() {
+    return _thinInterval;
+  }
+  
+  /**
+   * Sets the thinning interval
+   * @param thinInterval - the minimum time, in microseconds, between values
+   * sent for any one controller, or 0 to disable thinning
+   */
+  public synchronized void setThinInterval(long thinInterval) {
+    if (thinInterval < 0)
+      throw new IllegalArgumentException("Thin interval cannot be negative");
+    _thinInterval = thinInterval;
+  }
+  
+  /**
+   * Forgets all tracked state, so that the next value for every controller is
+   * sent regardless of what was sent before.  Pending thinned values are
+   * discarded.  Call this if the receiving device may have been reset.
+   */
+  public synchronized void reset() {
+    cancelFlush();
+    Arrays.fill(_lastSent, NONE);
+    Arrays.fill(_pending, NONE);
+  }
+  
+  /**
+   * Sends any values being held back by thinning.
+   */
+  public synchronized void flush() {
+    cancelFlush();
+    final long now = now();
+    for (int slot = 0; slot < _pending.length; ++slot) {
+      if (_pending[slot] != NONE)
+        sendSlot(slot, _pending[slot], now);
+    }
+  }
+  
+  @Override
+  public synchronized void send(MidiMessage message, long timestamp) {
+    if (!(message instanceof ShortMessage)) {
+      _target.send(message, timestamp);
+      return;
+    }
+    
+    final ShortMessage sm = (ShortMessage) message;
+    final int command = sm.getCommand();
+    final int channel = sm.getChannel();
+    if (sm.getStatus() == ShortMessage.SYSTEM_RESET) {
+      reset();
+      _target.send(message, timestamp);
+      return;
+    }
+    
+    final int slot;
+    final int value;
+    if (command == ShortMessage.CONTROL_CHANGE && sm.getData1() < FIRST_MODE_CONTROLLER) {
+      final int controller = sm.getData1();
+      if (isDataEntry(controller)) {
+        _target.send(message, timestamp);
+        return;
+      }
+      slot = channel * SLOTS + controller;
+      value = sm.getData2();
+      
+      if (controller >= NRPN_LSB && controller <= RPN_MSB) {
+        // the device now has a different kind of parameter selected, so the
+        // other kind must be sent again next time
+        final boolean rpn = controller >= RPN_LSB;
+        forget(channel * SLOTS + (rpn ? NRPN_LSB : RPN_LSB));
+        forget(channel * SLOTS + (rpn ? NRPN_MSB : RPN_MSB));
+        
+        // selections must reach the device before any following data entry
+        _pending[slot] = NONE;
+        if (value != _lastSent[slot]) {
+          _lastSent[slot] = value;
+          _target.send(message, timestamp);
+        }
+        return;
+      }
+    } else if (command == ShortMessage.CONTROL_CHANGE && sm.getData1() == RESET_ALL_CONTROLLERS) {
+      for (int i = 0; i < SLOTS; ++i)
+        forget(channel * SLOTS + i);
+      _target.send(message, timestamp);
+      return;
+    } else if (command == ShortMessage.PITCH_BEND) {
+      slot = channel * SLOTS + PITCH_BEND;
+      value = sm.getData1() | (sm.getData2() << 7);
+    } else {
+      _target.send(message, timestamp);
+      return;
+    }
+    
+    long now = 0;
+    if (_thinInterval > 0) {
+      now = timestamp < 0 ? System.nanoTime() / 1000 : timestamp;
+      _clockOffset = now - System.nanoTime() / 1000;
+      if (_lastSent[slot] != NONE && now - _lastSentTime[slot] < _thinInterval) {
+        _pending[slot] = value == _lastSent[slot] ? NONE : value;
+        if (_pending[slot] != NONE)
+          scheduleFlush(_lastSentTime[slot] + _thinInterval, now);
+        return;
+      }
+    }
+    
+    _pending[slot] = NONE;
+    if (value != _lastSent[slot]) {
+      _lastSent[slot] = value;
+      _lastSentTime[slot] = now;
+      _target.send(message, timestamp);
+    }
+  }
+  
+  /**
+   * Sends any values being held back by thinning.  The target Receiver is not
+   * closed.
+   */
+  @Override
+  public void close() {
+    flush();
+  }
+  
+  private static boolean isDataEntry(int controller) {
+    return controller == DATA_ENTRY_MSB || controller == DATA_ENTRY_LSB ||
+        controller == DATA_INCREMENT || controller == DATA_DECREMENT;
+  }
+  
+  private void forget(int slot) {
+    _lastSent[slot] = NONE;
+    _pending[slot] = NONE;
+  }
+  
+  /**
+   * @return the current time on the clock of the timestamps passed to
+   * {@link #send(MidiMessage, long)}, as of the last thinned message
+   */
+  private long now() {
+    return System.nanoTime() / 1000 + _clockOffset;
+  }
+  
+  private void scheduleFlush(long due, long now) {
+    if (_flushTask != null) {
+      if (_flushDue <= due)
+        return;
+      _flushTask.cancel(false);
+    }
+    _flushDue = due;
+    _flushTask = Flusher.EXECUTOR.schedule(this::scheduledFlush, Math.max(0, due - now), TimeUnit.MICROSECONDS);
+  }
+  
+  private void cancelFlush() {
+    if (_flushTask != null) {
+      _flushTask.cancel(false);
+      _flushTask = null;
+    }
+  }
+  
+  /**
+   * Sends the held values whose slots have been quiet for a full interval, and
+   * schedules another run for the rest
+   */
+  private synchronized void scheduledFlush() {
+    try {
+      _flushTask = null;
+      final long now = now();
+      long nextDue = Long.MAX_VALUE;
+      for (int slot = 0; slot < _pending.length; ++slot) {
+        if (_pending[slot] == NONE)
+          continue;
+        
+        final long due = _lastSentTime[slot] + _thinInterval;
+        if (due <= now)
+          sendSlot(slot, _pending[slot], now);
+        else
+          nextDue = Math.min(nextDue, due);
+      }
+      if (nextDue != Long.MAX_VALUE)
+        scheduleFlush(nextDue, now);
+    } catch (RuntimeException e) {
+      e.printStackTrace();
+    }
+  }
+  
+  private void sendSlot(int slot, int value, long now) {
+    final int channel = slot / SLOTS;
+    final int controller = slot % SLOTS;
+    final ShortMessage message = new ShortMessage();
+    try {
+      if (controller == PITCH_BEND)
+        message.setMessage(ShortMessage.PITCH_BEND, channel, value & 0x7F, value >> 7);
+      else
+        message.setMessage(ShortMessage.CONTROL_CHANGE, channel, controller, value);
+    } catch (InvalidMidiDataException imde) {
+      // shouldn't happen, values were taken from valid messages
+      imde.printStackTrace();
+      return;
+    }
+    
+    _pending[slot] = NONE;
+    _lastSent[slot] = value;
+    _lastSentTime[slot] = now;
+    _target.send(message, -1);
+  }
+  
+  /**
+   * Holds the thread that sends held values, created on first use
+   */
+  private static final class Flusher {
+    static final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(r -> {
+      final Thread thread = new Thread(r, "MidiRedundancyFilter");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+}
@@ -1,12 +1,7 @@
 package common.midi;
 
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.regex.MatchResult;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import javax.sound.midi.MidiMessage;
 import javax.sound.midi.ShortMessage;
@@ -15,19 +10,16 @@ public class MidiUtilities {
   private static List<String> numList = Arrays.asList(new String[] {"C",
       "C#", "D", "D#", "E", "F", "F#", "G", "G#", "A", "A#", "B"});
   
-  private static final Map<String, Integer> _baseMap = new HashMap<>();
+  /** Pitch class of each letter, indexed by <tt>letter - 'A'</tt> */
+  private static final int[] BASES = { 9, 11, 0, 2, 4, 5, 7 };
+  
+  /** The names of all valid MIDI note numbers */
+  private static final String[] NOTE_NAMES = new String[128];
   static {
-    _baseMap.put("C", Integer.valueOf(0));
-    _baseMap.put("D", Integer.valueOf(2));
-    _baseMap.put("E", Integer.valueOf(4));
-    _baseMap.put("F", Integer.valueOf(5));
-    _baseMap.put("G", Integer.valueOf(7));
-    _baseMap.put("A", Integer.valueOf(9));
-    _baseMap.put("B", Integer.valueOf(11));
+    for (int number = 0; number < NOTE_NAMES.length; ++number)
+      NOTE_NAMES[number] = (numList.get(number % 12) + ((number / 12) - 1)).intern();
   }
   
-  private static final Pattern NOTE_FORMAT = Pattern.compile("([A-G])([#b]?)(-?\\d{1,2})");
-  
   /**
    * Converts a note name in scientific pitch notation into its MIDI number
    * @param noteName - the name of the note in scientific pitch notation
@@ -35,24 +27,40 @@ public class MidiUtilities {
    * @return the MIDI number of the given note
    */
   public static int noteNameToNumber(String noteName) {
-    final Matcher matcher = NOTE_FORMAT.matcher(noteName);
-    if (!matcher.matches())
+    // Hand-rolled equivalent of matching ([A-G])([#b]?)(-?\d{1,2})
+    final int length = noteName.length();
+    int i = 0;
+    
+    final char letter = length > 0 ? noteName.charAt(i++) : 0;
+    if (letter < 'A' || letter > 'G')
       throw new IllegalArgumentException("Given note name didn't match pattern");
     
-    final MatchResult result = matcher.toMatchResult();
-    final String pitchClass = result.group(1);
-    final String sharpFlat = result.group(2);
-    final int octave = Integer.parseInt(result.group(3));
+    int accidental = 0;
+    if (i < length) {
+      final char c = noteName.charAt(i);
+      if (c == '#') { accidental = 1; ++i; }
+      else if (c == 'b') { accidental = -1; ++i; }
+    }
+    
+    final boolean negative = i < length && noteName.charAt(i) == '-';
+    if (negative)
+      ++i;
     
-    final int accidental;
-    if (sharpFlat.isEmpty())
-      accidental = 0;
-    else if (sharpFlat.charAt(0) == 'b')
-      accidental = -1;
-    else
-      accidental = 1;
+    final int digits = length - i;
+    if (digits < 1 || digits > 2)
+      throw new IllegalArgumentException("Given note name didn't match pattern");
+    
+    int octave = 0;
+    for (; i < length; ++i) {
+      final char c = noteName.charAt(i);
+      if (c < '0' || c > '9')
+        throw new IllegalArgumentException("Given note name didn't match pattern");
+      octave = 10*octave + (c - '0');
+    }
+    if (negative)
+      octave = -octave;
     
-    return _baseMap.get(pitchClass).intValue() + accidental + (12*(octave+1));
+    return BASES[letter - 'A'] + accidental + (12*(octave+1));
   }
   
   /**
@@ -61,41 +69,210 @@ public class MidiUtilities {
    * @return the note name in scientific pitch notation (e.g., A4, C#3, F#5)
    */
   public static String noteNumberToName(int number) {
+    if (number >= 0 && number < NOTE_NAMES.length)
+      return NOTE_NAMES[number];
+    
     int octave = (number / 12) - 1;
     int noteIdx = number % 12;
-    return (numList.get(noteIdx)).toUpperCase() + octave;
+    return numList.get(noteIdx) + octave;
   }
   
   /**
    * Creates a human-readable string for a MIDI ShortMessage
    * @param sm - the ShortMessage to use
    * @return a String representation of the ShortMessage
+   * @see #appendTo(StringBuilder, MidiMessage)
    */
   public static String toString(MidiMessage mm) {
-    if (mm instanceof ShortMessage) {
-      final ShortMessage sm = (ShortMessage) mm;
-      if (isNoteOn(sm)) {
-        return "Note On ch=" + sm.getChannel() + " note=" + sm.getData1()
-            + " (" + noteNumberToName(sm.getData1()) + ") vel="
-            + sm.getData2();
-      } else if (isNoteOff(sm)) {
-        return "Note Off ch=" + sm.getChannel() + " note="
-            + sm.getData1() + " ("
-            + noteNumberToName(sm.getData1()) + ")";
-      } else if (isControlChange(sm)) {
-        return "Control Change ch=" + sm.getChannel() + " control="
-            + sm.getData1() + " value=" + sm.getData2();
-      } else if (isPitchBend(sm)) {
-        return "Pitch Bend ch=" + sm.getChannel() + " value=" + sm.getData2();
-      }
-      
-      return "ShortMessage[ch=" + (sm.getChannel()+1) +
-          " cmd=" + sm.getCommand() +
-          " d1=" + sm.getData1() +
-          " d2=" + sm.getData2() + "]";
-    } else {
-      return mm.getClass().getSimpleName() + " " + Arrays.toString(mm.getMessage());
+    return appendTo(new StringBuilder(48), mm).toString();
+  }
+  
+  /**
+   * Appends a human-readable description of a MIDI message to the given
+   * StringBuilder, in the same format as {@link #toString(MidiMessage)}.  For
+   * ShortMessages this does not allocate (beyond growing <tt>sb</tt>); other
+   * messages require a copy of the message bytes.
+   * @param sb - the StringBuilder to append to
+   * @param mm - the MidiMessage to describe
+   * @return <tt>sb</tt>
+   */
+  public static StringBuilder appendTo(StringBuilder sb, MidiMessage mm) {
+    if (mm instanceof ShortMessage)
+      return appendTo(sb, pack((ShortMessage) mm));
+    
+    return sb.append(mm.getClass().getSimpleName()).append(' ')
+             .append(Arrays.toString(mm.getMessage()));
+  }
+  
+  /**
+   * Appends a human-readable description of a packed short message to the
+   * given StringBuilder, in the same format as {@link #toString(MidiMessage)}.
+   * Does not allocate (beyond growing <tt>sb</tt>).
+   * @param sb - the StringBuilder to append to
+   * @param packed - the message, as returned by {@link #pack(int, int, int)}
+   * @return <tt>sb</tt>
+   */
+  public static StringBuilder appendTo(StringBuilder sb, int packed) {
+    final int channel = getChannel(packed);
+    final int data1 = getData1(packed);
+    final int data2 = getData2(packed);
+    if (isNoteOn(packed)) {
+      sb.append("Note On ch=").append(channel).append(" note=").append(data1).append(" (");
+      return appendNoteName(sb, data1).append(") vel=").append(data2);
+    } else if (isNoteOff(packed)) {
+      sb.append("Note Off ch=").append(channel).append(" note=").append(data1).append(" (");
+      return appendNoteName(sb, data1).append(')');
+    } else if (isControlChange(packed)) {
+      return sb.append("Control Change ch=").append(channel)
+               .append(" control=").append(data1)
+               .append(" value=").append(data2);
+    } else if (isPitchBend(packed)) {
+      return sb.append("Pitch Bend ch=").append(channel).append(" value=").append(data2);
     }
+    
+    return sb.append("ShortMessage[ch=").append(channel+1)
+             .append(" cmd=").append(getCommand(packed))
+             .append(" d1=").append(data1)
+             .append(" d2=").append(data2).append(']');
+  }
+  
+  /**
+   * Appends the name of a MIDI note in scientific pitch notation to the given
+   * StringBuilder.  Does not allocate (beyond growing <tt>sb</tt>).
+   * @param sb - the StringBuilder to append to
+   * @param number - the MIDI number of the note
+   * @return <tt>sb</tt>
+   * @see #noteNumberToName(int)
+   */
+  public static StringBuilder appendNoteName(StringBuilder sb, int number) {
+    if (number >= 0 && number < NOTE_NAMES.length)
+      return sb.append(NOTE_NAMES[number]);
+    
+    return sb.append(numList.get(number % 12)).append((number / 12) - 1);
+  }
+  
+  /**
+   * Packs the status and data bytes of a ShortMessage into a single int, for
+   * use with the allocation-free decoders in this class
+   * @param sm - the ShortMessage
+   * @return the packed message
+   */
+  public static int pack(ShortMessage sm) {
+    return pack(sm.getStatus(), sm.getData1(), sm.getData2());
+  }
+  
+  /**
+   * Packs raw MIDI bytes into a single int, for use with the allocation-free
+   * decoders in this class.  The data bytes are taken as 0 if they are not
+   * present in <tt>data</tt>.
+   * @param data - the raw bytes of a short message
+   * @param offset - the index of the status byte in <tt>data</tt>
+   * @return the packed message
+   */
+  public static int pack(byte[] data, int offset) {
+    final int status = data[offset] & 0xFF;
+    final int data1 = offset + 1 < data.length ? data[offset+1] & 0xFF : 0;
+    final int data2 = offset + 2 < data.length ? data[offset+2] & 0xFF : 0;
+    return pack(status, data1, data2);
+  }
+  
+  /**
+   * Packs a status byte and two data bytes into a single int
+   * @param status - the status byte (command and channel)
+   * @param data1 - the first data byte
+   * @param data2 - the second data byte
+   * @return the packed message
+   */
+  public static int pack(int status, int data1, int data2) {
+    return (status & 0xFF) | ((data1 & 0xFF) << 8) | ((data2 & 0xFF) << 16);
+  }
+  
+  /**
+   * @param packed - a packed message
+   * @return the status byte of the message
+   */
+  public static int getStatus(int packed) {
+    return packed & 0xFF;
+  }
+  
+  /**
+   * @param packed - a packed message
+   * @return the command of the message, e.g. {@link ShortMessage#NOTE_ON}
+   */
+  public static int getCommand(int packed) {
+    return packed & 0xF0;
+  }
+  
+  /**
+   * @param packed - a packed message
+   * @return the (zero-based) channel of the message
+   */
+  public static int getChannel(int packed) {
+    return packed & 0x0F;
+  }
+  
+  /**
+   * @param packed - a packed message
+   * @return the first data byte of the message
+   */
+  public static int getData1(int packed) {
+    return (packed >>> 8) & 0xFF;
+  }
+  
+  /**
+   * @param packed - a packed message
+   * @return the second data byte of the message
+   */
+  public static int getData2(int packed) {
+    return (packed >>> 16) & 0xFF;
+  }
+  
+  /**
+   * @param packed - a packed Pitch Bend message
+   * @return the 14-bit pitch bend value, where 8192 is centered
+   */
+  public static int getPitchBendValue(int packed) {
+    return getData1(packed) | (getData2(packed) << 7);
+  }
+  
+  /**
+   * Determines if the given packed message is a MIDI NOTE ON message
+   * @param packed - the packed message to check
+   * @return <tt>true</tt> if the message is a MIDI NOTE ON message
+   * @see #isNoteOn(ShortMessage)
+   */
+  public static boolean isNoteOn(int packed) {
+    return getCommand(packed) == ShortMessage.NOTE_ON && getData2(packed) > 0;
+  }
+  
+  /**
+   * Determines if the given packed message is a MIDI NOTE OFF message
+   * @param packed - the packed message to check
+   * @return <tt>true</tt> if the message is a MIDI NOTE OFF message
+   * @see #isNoteOff(ShortMessage)
+   */
+  public static boolean isNoteOff(int packed) {
+    final int command = getCommand(packed);
+    return command == ShortMessage.NOTE_OFF ||
+      (command == ShortMessage.NOTE_ON && getData2(packed) == 0);
+  }
+  
+  /**
+   * Determines if the given packed message is a MIDI Control Change message
+   * @param packed - the packed message to check
+   * @return <tt>true</tt> if the message is a MIDI Control Change message
+   */
+  public static boolean isControlChange(int packed) {
+    return getCommand(packed) == ShortMessage.CONTROL_CHANGE;
+  }
+  
+  /**
+   * Determines if the given packed message is a MIDI Pitch Bend message
+   * @param packed - the packed message to check
+   * @return <tt>true</tt> if the message is a MIDI Pitch Bend message
+   */
+  public static boolean isPitchBend(int packed) {
+    return getCommand(packed) == ShortMessage.PITCH_BEND;
   }
   
   /**
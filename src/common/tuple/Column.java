@@ -0,0 +1,123 @@
+package common.tuple;
+
+import java.util.function.IntBinaryOperator;
+
+/**
+ * A growable, index-addressed column of values, used as one component of a
+ * columnar tuple collection such as {@link PairList} or {@link TripleList}.
+ * Columns of primitives ({@link IntColumn}, {@link LongColumn},
+ * {@link DoubleColumn}) store their values unboxed in a single array, so
+ * scanning a column touches only that array.
+ * 
+ * @author Matt Putnam
+ * @param <T> the type of value stored
+ */
+public abstract class Column<T> {
+  static final int DEFAULT_CAPACITY = 10;
+  
+  public static IntColumn ints() {
+    return new IntColumn(DEFAULT_CAPACITY);
+  }
+  
+  public static LongColumn longs() {
+    return new LongColumn(DEFAULT_CAPACITY);
+  }
+  
+  public static DoubleColumn doubles() {
+    return new DoubleColumn(DEFAULT_CAPACITY);
+  }
+  
+  public static <T> ObjectColumn<T> objects() {
+    return new ObjectColumn<>(DEFAULT_CAPACITY);
+  }
+  
+  /**
+   * @return the number of values in this column
+   */
+  public abstract int size();
+  
+  public abstract T get(int index);
+  
+  public abstract void set(int index, T value);
+  
+  public abstract void add(T value);
+  
+  /**
+   * Checks that the given value can be stored in this column, so that a row
+   * spanning several columns can be validated before any column is changed.
+   * Accepts any value by default.
+   * @param value - the value to check
+   * @throws IllegalArgumentException if the value can't be stored
+   */
+  public void check(T value) {
+  }
+  
+  public abstract void clear();
+  
+  /**
+   * Compares two values in this column by their natural ordering
+   * @param index1 - the index of the first value
+   * @param index2 - the index of the second value
+   * @return a negative number, zero, or a positive number as the first value
+   * is less than, equal to, or greater than the second
+   * @throws ClassCastException if the values are objects that aren't
+   * Comparable
+   */
+  public abstract int compare(int index1, int index2);
+  
+  /**
+   * Creates a new column holding the values at the given indices, in order
+   * @param indices - the indices of the values to select
+   * @return a new column
+   */
+  public abstract Column<T> select(int[] indices);
+  
+  /**
+   * @return a new column holding the same values as this one
+   */
+  public abstract Column<T> copy();
+  
+  /**
+   * Rearranges this column in place so that the value at index <tt>i</tt> is
+   * the value previously at <tt>order[i]</tt>
+   */
+  abstract void reorder(int[] order);
+  
+  static int grow(int size) {
+    return size + Math.max(size >> 1, 1);
+  }
+  
+  static void checkIndex(int index, int size) {
+    if (index < 0 || index >= size)
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+  }
+  
+  /**
+   * Produces the permutation of <tt>0..size-1</tt> that sorts rows by the
+   * given comparator.  The sort is stable.
+   */
+  static int[] sortedIndices(int size, IntBinaryOperator comparator) {
+    int[] indices = new int[size];
+    for (int i = 0; i < size; ++i)
+      indices[i] = i;
+    
+    int[] scratch = new int[size];
+    for (int width = 1; width < size; width <<= 1) {
+      for (int lo = 0; lo < size; lo += width << 1) {
+        final int mid = Math.min(lo + width, size);
+        final int hi = Math.min(lo + (width << 1), size);
+        int i = lo, j = mid, k = lo;
+        while (i < mid && j < hi)
+          scratch[k++] = comparator.applyAsInt(indices[i], indices[j]) <= 0 ? indices[i++] : indices[j++];
+        while (i < mid)
+          scratch[k++] = indices[i++];
+        while (j < hi)
+          scratch[k++] = indices[j++];
+      }
+      final int[] temp = indices;
+      indices = scratch;
+      scratch = temp;
+    }
+    return indices;
+  }
+}
@@ -0,0 +1,113 @@
+package common.tuple;
+
+import java.util.Arrays;
+import java.util.stream.DoubleStream;
+
+/**
+ * A growable column of <tt>double</tt> values, stored unboxed.
+ * 
+ * @author Matt Putnam
+ * @see Column
+ */
+public final class DoubleColumn extends Column<Double> {
+  private double[] _values;
+  private int _size;
+  
+  DoubleColumn(int capacity) {
+    _values = new double[Math.max(capacity, DEFAULT_CAPACITY)];
+    _size = 0;
+  }
+  
+  private DoubleColumn(double[] values, int size) {
+    _values = values;
+    _size = size;
+  }
+  
+  @Override
+  public int size() {
+    return _size;
+  }
+  
+  public double getDouble(int index) {
+    checkIndex(index, _size);
+    return _values[index];
+  }
+  
+  public void setDouble(int index, double value) {
+    checkIndex(index, _size);
+    _values[index] = value;
+  }
+  
+  public void addDouble(double value) {
+    if (_size == _values.length)
+      _values = Arrays.copyOf(_values, grow(_size));
+    _values[_size++] = value;
+  }
+  
+  @Override
+  public Double get(int index) {
+    return Double.valueOf(getDouble(index));
+  }
+  
+  @Override
+  public void set(int index, Double value) {
+    setDouble(index, value.doubleValue());
+  }
+  
+  @Override
+  public void add(Double value) {
+    addDouble(value.doubleValue());
+  }
+  
+  @Override
+  public void check(Double value) {
+    if (value == null)
+      throw new IllegalArgumentException("Cannot store null in a double column");
+  }
+  
+  @Override
+  public void clear() {
+    _size = 0;
+  }
+  
+  @Override
+  public int compare(int index1, int index2) {
+    return Double.compare(_values[index1], _values[index2]);
+  }
+  
+  @Override
+  public DoubleColumn select(int[] indices) {
+    final double[] result = new double[Math.max(indices.length, DEFAULT_CAPACITY)];
+    for (int i = 0; i < indices.length; ++i)
+      result[i] = getDouble(indices[i]);
+    return new DoubleColumn(result, indices.length);
+  }
+  
+  @Override
+  public DoubleColumn copy() {
+    return new DoubleColumn(Arrays.copyOf(_values, Math.max(_size, DEFAULT_CAPACITY)), _size);
+  }
+  
+  /**
+   * @return a copy of the values in this column
+   */
+  public double[] toArray() {
+    return Arrays.copyOf(_values, _size);
+  }
+  
+  @Override
+  void reorder(int[] order) {
+    final double[] result = new double[Math.max(order.length, DEFAULT_CAPACITY)];
+    for (int i = 0; i < order.length; ++i)
+      result[i] = _values[order[i]];
+    _values = result;
+    _size = order.length;
+  }
+  
+  /**
+   * @return a stream over the values in this column, without copying them
+   */
+  public DoubleStream stream() {
+    return Arrays.stream(_values, 0, _size);
+  }
+}
@@ -0,0 +1,93 @@
+package common.tuple;
+
+import java.io.Serializable;
+
+import common.Copyable;
+import common.Immutable;
+
+/**
+ * A pair of <tt>double</tt>s.  Equivalent to a <tt>Pair&lt;Double, Double&gt;</tt>,
+ * including {@link #equals(Object)} semantics and {@link #hashCode()}, but
+ * without boxing.
+ * 
+ * @author Matt Putnam
+ * @see Pair
+ */
+public final class DoublePair implements Comparable<DoublePair>, Copyable<DoublePair>, Immutable, Serializable {
+  private static final long serialVersionUID = 1L;
+  
+  private final double _a;
+  private final double _b;
+  
+  public static DoublePair make(double x, double y) {
+    return new DoublePair(x, y);
+  }
+  
+  /**
+   * Converts a Pair of Numbers into a DoublePair
+   * @param pair - the Pair to convert
+   * @return a DoublePair with the same values as <tt>pair</tt>
+   */
+  public static DoublePair fromPair(Pair<? extends Number, ? extends Number> pair) {
+    return new DoublePair(pair._1().doubleValue(), pair._2().doubleValue());
+  }
+  
+  public DoublePair(double a, double b) {
+    _a = a;
+    _b = b;
+  }
+  
+  public double _1() {
+    return _a;
+  }
+  
+  public double _2() {
+    return _b;
+  }
+  
+  public DoublePair swap() {
+    return new DoublePair(_b, _a);
+  }
+  
+  /**
+   * @return a Pair of Doubles with the same values as this
+   */
+  public Pair<Double, Double> toPair() {
+    return Pair.make(Double.valueOf(_a), Double.valueOf(_b));
+  }
+  
+  @Override
+  public String toString() {
+    return "DoublePair[" + _a + ", " + _b + "]";
+  }
+  
+  @Override
+  public boolean equals(Object obj) {
+    if (obj == this) return true;
+    if (!(obj instanceof DoublePair)) return false;
+    final DoublePair p = (DoublePair) obj;
+    return Double.compare(_a, p._a) == 0 && Double.compare(_b, p._b) == 0;
+  }
+  
+  @Override
+  public int hashCode() {
+    return 31*Double.hashCode(_a) + Double.hashCode(_b);
+  }
+  
+  /**
+   * Compares first by the first element, then by the second element
+   */
+  @Override
+  public int compareTo(DoublePair o) {
+    final int temp = Double.compare(_a, o._a);
+    return temp != 0 ? temp : Double.compare(_b, o._b);
+  }
+  
+  /**
+   * Returns this pair, since it can never change
+   */
+  @Override
+  public DoublePair copy() {
+    return this;
+  }
+}
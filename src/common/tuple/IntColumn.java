@@ -0,0 +1,113 @@
+package common.tuple;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * A growable column of <tt>int</tt> values, stored unboxed.
+ * 
+ * @author Matt Putnam
+ * @see Column
+ */
+public final class IntColumn extends Column<Integer> {
+  private int[] _values;
+  private int _size;
+  
+  IntColumn(int capacity) {
+    _values = new int[Math.max(capacity, DEFAULT_CAPACITY)];
+    _size = 0;
+  }
+  
+  private IntColumn(int[] values, int size) {
+    _values = values;
+    _size = size;
+  }
+  
+  @Override
+  public int size() {
+    return _size;
+  }
+  
+  public int getInt(int index) {
+    checkIndex(index, _size);
+    return _values[index];
+  }
+  
+  public void setInt(int index, int value) {
+    checkIndex(index, _size);
+    _values[index] = value;
+  }
+  
+  public void addInt(int value) {
+    if (_size == _values.length)
+      _values = Arrays.copyOf(_values, grow(_size));
+    _values[_size++] = value;
+  }
+  
+  @Override
+  public Integer get(int index) {
+    return Integer.valueOf(getInt(index));
+  }
+  
+  @Override
+  public void set(int index, Integer value) {
+    setInt(index, value.intValue());
+  }
+  
+  @Override
+  public void add(Integer value) {
+    addInt(value.intValue());
+  }
+  
+  @Override
+  public void check(Integer value) {
+    if (value == null)
+      throw new IllegalArgumentException("Cannot store null in an int column");
+  }
+  
+  @Override
+  public void clear() {
+    _size = 0;
+  }
+  
+  @Override
+  public int compare(int index1, int index2) {
+    return Integer.compare(_values[index1], _values[index2]);
+  }
+  
+  @Override
+  public IntColumn select(int[] indices) {
+    final int[] result = new int[Math.max(indices.length, DEFAULT_CAPACITY)];
+    for (int i = 0; i < indices.length; ++i)
+      result[i] = getInt(indices[i]);
+    return new IntColumn(result, indices.length);
+  }
+  
+  @Override
+  public IntColumn copy() {
+    return new IntColumn(Arrays.copyOf(_values, Math.max(_size, DEFAULT_CAPACITY)), _size);
+  }
+  
+  /**
+   * @return a copy of the values in this column
+   */
+  public int[] toArray() {
+    return Arrays.copyOf(_values, _size);
+  }
+  
+  @Override
+  void reorder(int[] order) {
+    final int[] result = new int[Math.max(order.length, DEFAULT_CAPACITY)];
+    for (int i = 0; i < order.length; ++i)
+      result[i] = _values[order[i]];
+    _values = result;
+    _size = order.length;
+  }
+  
+  /**
+   * @return a stream over the values in this column, without copying them
+   */
+  public IntStream stream() {
+    return Arrays.stream(_values, 0, _size);
+  }
+}
@@ -0,0 +1,107 @@
+package common.tuple;
+
+import java.io.Serializable;
+import java.util.Comparator;
+import java.util.Objects;
+
+import common.DeepCopier;
+import common.DeepCopyable;
+
+/**
+ * A pair of an <tt>int</tt> and an object.  Equivalent to a
+ * <tt>Pair&lt;Integer, B&gt;</tt>, including {@link #equals(Object)} semantics
+ * and {@link #hashCode()}, but without boxing the int.
+ * 
+ * @author Matt Putnam
+ * @see Pair
+ * @param <B> the type of the second element
+ */
+public final class IntObjPair<B> implements DeepCopyable<IntObjPair<B>>, Serializable {
+  private static final long serialVersionUID = 1L;
+  
+  private final int _a;
+  private final B _b;
+  
+  public static <Y> IntObjPair<Y> make(int x, Y y) {
+    return new IntObjPair<>(x, y);
+  }
+  
+  /**
+   * Converts a Pair of a Number and an object into an IntObjPair
+   * @param pair - the Pair to convert
+   * @return an IntObjPair with the same values as <tt>pair</tt>
+   */
+  public static <Y> IntObjPair<Y> fromPair(Pair<? extends Number, Y> pair) {
+    return new IntObjPair<>(pair._1().intValue(), pair._2());
+  }
+  
+  /**
+   * Comparator that sorts first by the int, then by the second element.
+   * @author Matt Putnam
+   */
+  public static class IntObjPairComparator<Y extends Comparable<? super Y>>
+      implements Comparator<IntObjPair<Y>> {
+    @Override
+    public int compare(IntObjPair<Y> arg0, IntObjPair<Y> arg1) {
+      final int temp = Integer.compare(arg0._a, arg1._a);
+      if (temp != 0) {
+        return temp;
+      } else {
+        return arg0._b.compareTo(arg1._b);
+      }
+    }
+  }
+  
+  public IntObjPair(int a, B b) {
+    _a = a;
+    _b = b;
+  }
+  
+  public int _1() {
+    return _a;
+  }
+  
+  public B _2() {
+    return _b;
+  }
+  
+  /**
+   * @return a Pair with the same values as this
+   */
+  public Pair<Integer, B> toPair() {
+    return Pair.make(Integer.valueOf(_a), _b);
+  }
+  
+  @Override
+  public String toString() {
+    return "IntObjPair[" + _a + ", " + _b + "]";
+  }
+  
+  @Override
+  public boolean equals(Object obj) {
+    if (obj == this) return true;
+    if (!(obj instanceof IntObjPair)) return false;
+    final IntObjPair<?> p = (IntObjPair<?>) obj;
+    return _a == p._a && Objects.equals(_b, p._b);
+  }
+  
+  @Override
+  public int hashCode() {
+    return 31*_a + Objects.hashCode(_b);
+  }
+  
+  @Override
+  public IntObjPair<B> copy() {
+    return new IntObjPair<>(_a, _b);
+  }
+  
+  /**
+   * Copies the object component with the given copier.  Returns this pair if
+   * it didn't need copying.
+   */
+  @Override
+  public IntObjPair<B> deepCopy(DeepCopier copier) {
+    final B b = copier.copy(_b);
+    return b == _b ? this : new IntObjPair<>(_a, b);
+  }
+}
@@ -0,0 +1,113 @@
+package common.tuple;
+
+import java.util.Arrays;
+import java.util.stream.LongStream;
+
+/**
+ * A growable column of <tt>long</tt> values, stored unboxed.
+ * 
+ * @author Matt Putnam
+ * @see Column
+ */
+public final class LongColumn extends Column<Long> {
+  private long[] _values;
+  private int _size;
+  
+  LongColumn(int capacity) {
+    _values = new long[Math.max(capacity, DEFAULT_CAPACITY)];
+    _size = 0;
+  }
+  
+  private LongColumn(long[] values, int size) {
+    _values = values;
+    _size = size;
+  }
+  
+  @Override
+  public int size() {
+    return _size;
+  }
+  
+  public long getLong(int index) {
+    checkIndex(index, _size);
+    return _values[index];
+  }
+  
+  public void setLong(int index, long value) {
+    checkIndex(index, _size);
+    _values[index] = value;
+  }
+  
+  public void addLong(long value) {
+    if (_size == _values.length)
+      _values = Arrays.copyOf(_values, grow(_size));
+    _values[_size++] = value;
+  }
+  
+  @Override
+  public Long get(int index) {
+    return Long.valueOf(getLong(index));
+  }
+  
+  @Override
+  public void set(int index, Long value) {
+    setLong(index, value.longValue());
+  }
+  
+  @Override
+  public void add(Long value) {
+    addLong(value.longValue());
+  }
+  
+  @Override
+  public void check(Long value) {
+    if (value == null)
+      throw new IllegalArgumentException("Cannot store null in a long column");
+  }
+  
+  @Override
+  public void clear() {
+    _size = 0;
+  }
+  
+  @Override
+  public int compare(int index1, int index2) {
+    return Long.compare(_values[index1], _values[index2]);
+  }
+  
+  @Override
+  public LongColumn select(int[] indices) {
+    final long[] result = new long[Math.max(indices.length, DEFAULT_CAPACITY)];
+    for (int i = 0; i < indices.length; ++i)
+      result[i] = getLong(indices[i]);
+    return new LongColumn(result, indices.length);
+  }
+  
+  @Override
+  public LongColumn copy() {
+    return new LongColumn(Arrays.copyOf(_values, Math.max(_size, DEFAULT_CAPACITY)), _size);
+  }
+  
+  /**
+   * @return a copy of the values in this column
+   */
+  public long[] toArray() {
+    return Arrays.copyOf(_values, _size);
+  }
+  
+  @Override
+  void reorder(int[] order) {
+    final long[] result = new long[Math.max(order.length, DEFAULT_CAPACITY)];
+    for (int i = 0; i < order.length; ++i)
+      result[i] = _values[order[i]];
+    _values = result;
+    _size = order.length;
+  }
+  
+  /**
+   * @return a stream over the values in this column, without copying them
+   */
+  public LongStream stream() {
+    return Arrays.stream(_values, 0, _size);
+  }
+}
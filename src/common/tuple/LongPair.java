@@ -0,0 +1,93 @@
+package common.tuple;
+
+import java.io.Serializable;
+
+import common.Copyable;
+import common.Immutable;
+
+/**
+ * A pair of <tt>long</tt>s.  Equivalent to a <tt>Pair&lt;Long, Long&gt;</tt>,
+ * including {@link #equals(Object)} semantics and {@link #hashCode()}, but
+ * without boxing.
+ * 
+ * @author Matt Putnam
+ * @see Pair
+ */
+public final class LongPair implements Comparable<LongPair>, Copyable<LongPair>, Immutable, Serializable {
+  private static final long serialVersionUID = 1L;
+  
+  private final long _a;
+  private final long _b;
+  
+  public static LongPair make(long x, long y) {
+    return new LongPair(x, y);
+  }
+  
+  /**
+   * Converts a Pair of Numbers into a LongPair
+   * @param pair - the Pair to convert
+   * @return a LongPair with the same values as <tt>pair</tt>
+   */
+  public static LongPair fromPair(Pair<? extends Number, ? extends Number> pair) {
+    return new LongPair(pair._1().longValue(), pair._2().longValue());
+  }
+  
+  public LongPair(long a, long b) {
+    _a = a;
+    _b = b;
+  }
+  
+  public long _1() {
+    return _a;
+  }
+  
+  public long _2() {
+    return _b;
+  }
+  
+  public LongPair swap() {
+    return new LongPair(_b, _a);
+  }
+  
+  /**
+   * @return a Pair of Longs with the same values as this
+   */
+  public Pair<Long, Long> toPair() {
+    return Pair.make(Long.valueOf(_a), Long.valueOf(_b));
+  }
+  
+  @Override
+  public String toString() {
+    return "LongPair[" + _a + ", " + _b + "]";
+  }
+  
+  @Override
+  public boolean equals(Object obj) {
+    if (obj == this) return true;
+    if (!(obj instanceof LongPair)) return false;
+    final LongPair p = (LongPair) obj;
+    return _a == p._a && _b == p._b;
+  }
+  
+  @Override
+  public int hashCode() {
+    return 31*Long.hashCode(_a) + Long.hashCode(_b);
+  }
+  
+  /**
+   * Compares first by the first element, then by the second element
+   */
+  @Override
+  public int compareTo(LongPair o) {
+    final int temp = Long.compare(_a, o._a);
+    return temp != 0 ? temp : Long.compare(_b, o._b);
+  }
+  
+  /**
+   * Returns this pair, since it can never change
+   */
+  @Override
+  public LongPair copy() {
+    return this;
+  }
+}
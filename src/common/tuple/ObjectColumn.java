@@ -0,0 +1,95 @@
+package common.tuple;
+
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+/**
+ * A growable column of object references.
+ * 
+ * @author Matt Putnam
+ * @see Column
+ * @param <T> the type of value stored
+ */
+public final class ObjectColumn<T> extends Column<T> {
+  private Object[] _values;
+  private int _size;
+  
+  ObjectColumn(int capacity) {
+    _values = new Object[Math.max(capacity, DEFAULT_CAPACITY)];
+    _size = 0;
+  }
+  
+  private ObjectColumn(Object[] values, int size) {
+    _values = values;
+    _size = size;
+  }
+  
+  @Override
+  public int size() {
+    return _size;
+  }
+  
+  @Override
+  @SuppressWarnings("unchecked")
+  public T get(int index) {
+    checkIndex(index, _size);
+    return (T) _values[index];
+  }
+  
+  @Override
+  public void set(int index, T value) {
+    checkIndex(index, _size);
+    _values[index] = value;
+  }
+  
+  @Override
+  public void add(T value) {
+    if (_size == _values.length)
+      _values = Arrays.copyOf(_values, grow(_size));
+    _values[_size++] = value;
+  }
+  
+  @Override
+  public void clear() {
+    Arrays.fill(_values, 0, _size, null);
+    _size = 0;
+  }
+  
+  @Override
+  @SuppressWarnings("unchecked")
+  public int compare(int index1, int index2) {
+    return ((Comparable<Object>) _values[index1]).compareTo(_values[index2]);
+  }
+  
+  @Override
+  public ObjectColumn<T> select(int[] indices) {
+    final Object[] result = new Object[Math.max(indices.length, DEFAULT_CAPACITY)];
+    for (int i = 0; i < indices.length; ++i) {
+      checkIndex(indices[i], _size);
+      result[i] = _values[indices[i]];
+    }
+    return new ObjectColumn<>(result, indices.length);
+  }
+  
+  @Override
+  public ObjectColumn<T> copy() {
+    return new ObjectColumn<>(Arrays.copyOf(_values, Math.max(_size, DEFAULT_CAPACITY)), _size);
+  }
+  
+  @Override
+  void reorder(int[] order) {
+    final Object[] result = new Object[Math.max(order.length, DEFAULT_CAPACITY)];
+    for (int i = 0; i < order.length; ++i)
+      result[i] = _values[order[i]];
+    _values = result;
+    _size = order.length;
+  }
+  
+  /**
+   * @return a stream over the values in this column, without copying them
+   */
+  @SuppressWarnings("unchecked")
+  public Stream<T> stream() {
+    return (Stream<T>) Arrays.stream(_values, 0, _size);
+  }
+}
@@ -1,6 +1,7 @@
 package common.tuple;
 
 import java.io.Serializable;
+import java.util.AbstractCollection;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
@@ -8,15 +9,24 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+import java.util.stream.Collector;
 
-import common.Copyable;
+import common.DeepCopier;
+import common.DeepCopyable;
 
-public class Pair<A, B> implements Copyable<Pair<A, B>>, Iterable<Object>, Serializable {
+public class Pair<A, B> implements DeepCopyable<Pair<A, B>>, Tuple, Serializable {
   private static final long serialVersionUID = 1L;
   
   private final A _a;
   private final B _b;
   
+  /** Lazily computed hash code, 0 if not yet computed */
+  private transient int _hash;
+  
   public static <X, Y> Pair<X, Y> make(X x, Y y) {
     return new Pair<>(x, y);
   }
@@ -57,7 +67,7 @@ public class Pair<A, B> implements Copyable<Pair<A, B>>, Iterable<Object>, Seria
   }
   
   public Map<A, B> toMap() {
-    final Map<A, B> result = new HashMap<>();
+    final Map<A, B> result = new HashMap<>(2);
     result.put(_a, _b);
     return result;
   }
@@ -71,13 +81,114 @@ public class Pair<A, B> implements Copyable<Pair<A, B>>, Iterable<Object>, Seria
   }
   
   public static <X, Y> Map<X, Y> toMap(Collection<Pair<X, Y>> collection) {
-    final Map<X, Y> result = new HashMap<>();
+    final Map<X, Y> result = new HashMap<>(capacityFor(collection.size()));
     for (final Pair<X, Y> pair : collection) {
       result.put(pair._1(), pair._2());
     }
     return result;
   }
   
+  /**
+   * Returns a live, read-only view of the entries of the given map as Pairs.
+   * Nothing is copied up front; each Pair is created as it is visited.
+   * @param map - the map to view
+   * @return a Collection of Pairs backed by <tt>map</tt>
+   */
+  public static <X, Y> Collection<Pair<X, Y>> entryView(Map<X, Y> map) {
+    return new AbstractCollection<Pair<X, Y>>() {
+      @Override
+      public Iterator<Pair<X, Y>> iterator() {
+        final Iterator<Map.Entry<X, Y>> entries = map.entrySet().iterator();
+        return new Iterator<Pair<X, Y>>() {
+          @Override
+          public boolean hasNext() {
+            return entries.hasNext();
+          }
+          
+          @Override
+          public Pair<X, Y> next() {
+            final Map.Entry<X, Y> entry = entries.next();
+            return Pair.make(entry.getKey(), entry.getValue());
+          }
+        };
+      }
+      
+      @Override
+      public int size() {
+        return map.size();
+      }
+    };
+  }
+  
+  /**
+   * Returns a Collector that puts Pairs into a HashMap.  As with
+   * {@link #toMap(Collection)}, later Pairs replace earlier ones with the same
+   * key.
+   * @return a Collector of Pairs into a Map
+   */
+  public static <X, Y> Collector<Pair<X, Y>, ?, Map<X, Y>> toMapCollector() {
+    return toMapCollector(0);
+  }
+  
+  /**
+   * Returns a Collector that puts Pairs into a HashMap pre-sized for the
+   * expected number of entries.  As with {@link #toMap(Collection)}, later
+   * Pairs replace earlier ones with the same key.<br>
+   * <br>
+   * This is meant for sequential streams.  On a parallel stream every task
+   * gets its own HashMap sized for all of the entries, and most of that is
+   * thrown away when the maps are merged, so use
+   * {@link #toMapCollector()} or {@link #toConcurrentMapCollector(int)}
+   * instead.
+   * @param expectedSize - the expected number of distinct keys
+   * @return a Collector of Pairs into a Map
+   */
+  public static <X, Y> Collector<Pair<X, Y>, ?, Map<X, Y>> toMapCollector(int expectedSize) {
+    return Collector.of(
+        () -> new HashMap<X, Y>(capacityFor(expectedSize)),
+        (map, pair) -> map.put(pair._a, pair._b),
+        (left, right) -> {
+          left.putAll(right);
+          return left;
+        },
+        Collector.Characteristics.IDENTITY_FINISH);
+  }
+  
+  /**
+   * Returns a concurrent Collector that puts Pairs into a single
+   * ConcurrentHashMap pre-sized for the expected number of entries.  On
+   * parallel streams every thread inserts into the same map, so there is no
+   * merge step.  If several Pairs have the same key, which one is kept is
+   * unspecified.  Unlike {@link #toMapCollector(int)}, null keys and values
+   * are not allowed.
+   * @param expectedSize - the expected number of distinct keys
+   * @return a concurrent Collector of Pairs into a ConcurrentMap
+   * @throws IllegalArgumentException when collecting a Pair with a null
+   * component
+   */
+  public static <X, Y> Collector<Pair<X, Y>, ?, ConcurrentMap<X, Y>> toConcurrentMapCollector(int expectedSize) {
+    // ConcurrentHashMap sizes itself for the given count, so no load factor
+    // adjustment is needed as it is for HashMap
+    return Collector.of(
+        () -> new ConcurrentHashMap<X, Y>(expectedSize),
+        (map, pair) -> {
+          if (pair._a == null || pair._b == null)
+            throw new IllegalArgumentException("Cannot collect a null key or value into a ConcurrentMap: " + pair);
+          map.put(pair._a, pair._b);
+        },
+        (left, right) -> {
+          left.putAll(right);
+          return left;
+        },
+        Collector.Characteristics.CONCURRENT,
+        Collector.Characteristics.UNORDERED,
+        Collector.Characteristics.IDENTITY_FINISH);
+  }
+  
+  private static int capacityFor(int expectedSize) {
+    return expectedSize < 3 ? expectedSize + 1 : (int) (expectedSize / 0.75f) + 1;
+  }
+  
   public List<Object> toList() {
     final List<Object> result = new ArrayList<>(2);
     result.add(_a); result.add(_b);
@@ -91,25 +202,68 @@ public class Pair<A, B> implements Copyable<Pair<A, B>>, Iterable<Object>, Seria
   
   @Override
   public boolean equals(Object obj) {
-    if (obj == null) return false;
     if (obj == this) return true;
-    @SuppressWarnings("unchecked")
-    final Pair<A, B> p = (Pair<A, B>) obj;
-    return this._a.equals(p._a) && this._b.equals(p._b);
+    if (!(obj instanceof Pair)) return false;
+    final Pair<?, ?> p = (Pair<?, ?>) obj;
+    return Objects.equals(this._a, p._a) &&
+         Objects.equals(this._b, p._b);
   }
   
+  /**
+   * Returns the hash code, computing it on first use.  As with any object used
+   * as a hash key, the components must not be mutated in ways that change
+   * their hash codes.
+   */
   @Override
   public int hashCode() {
-    return 31*_a.hashCode() + _b.hashCode();
+    int hashCode = _hash;
+    if (hashCode == 0) {
+      hashCode = 31*Objects.hashCode(_a) + Objects.hashCode(_b);
+      _hash = hashCode;
+    }
+    return hashCode;
   }
 
   @Override
   public Pair<A, B> copy() {
     return new Pair<>(_a, _b);
   }
+  
+  /**
+   * Copies each component with the given copier.  Returns this tuple if no
+   * component needed copying.
+   */
+  @Override
+  public Pair<A, B> deepCopy(DeepCopier copier) {
+    final A a = copier.copy(_a);
+    final B b = copier.copy(_b);
+    if (a == _a && b == _b)
+      return this;
+    return new Pair<>(a, b);
+  }
 
+  @Override
+  public int arity() {
+    return 2;
+  }
+  
+  @Override
+  public Object get(int index) {
+    switch (index) {
+      case 0: return _a;
+      case 1: return _b;
+      default: throw new IndexOutOfBoundsException("Index: " + index + ", arity: 2");
+    }
+  }
+  
   @Override
   public Iterator<Object> iterator() {
-    return toList().iterator();
+    return new TupleIterator(this);
+  }
+  
+  @Override
+  public void forEach(Consumer<? super Object> action) {
+    action.accept(_a);
+    action.accept(_b);
   }
 }
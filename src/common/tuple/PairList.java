@@ -0,0 +1,171 @@
+package common.tuple;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.RandomAccess;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntPredicate;
+
+/**
+ * A list of pairs stored column-wise: each component is held in its own
+ * {@link Column}, so a list of a million <tt>Pair&lt;Integer, Double&gt;</tt>
+ * can be held as one <tt>int[]</tt> and one <tt>double[]</tt> instead of
+ * three million objects.<br>
+ * <br>
+ * {@link #get(int)} materializes a Pair on demand.  For scans, read the
+ * columns directly (e.g. {@link IntColumn#getInt(int)} or
+ * {@link IntColumn#stream()}); keep a typed reference to the columns passed
+ * to the constructor for this.  Rows may also be appended directly to the
+ * columns to avoid boxing, as long as every column has been appended to
+ * before the list is next used.
+ * 
+ * @author Matt Putnam
+ * @param <A> the type of the first element
+ * @param <B> the type of the second element
+ */
+public class PairList<A, B> extends AbstractList<Pair<A, B>> implements RandomAccess {
+  private final Column<A> _column1;
+  private final Column<B> _column2;
+  
+  /**
+   * Creates a PairList backed by the given columns
+   * @param column1 - the column of first elements
+   * @param column2 - the column of second elements
+   */
+  public PairList(Column<A> column1, Column<B> column2) {
+    if (column1.size() != column2.size())
+      throw new IllegalArgumentException("Columns must be the same size");
+    _column1 = column1;
+    _column2 = column2;
+  }
+  
+  /**
+   * Creates a PairList holding the given pairs
+   * @param pairs - the pairs to add
+   * @param column1 - an empty column to hold first elements
+   * @param column2 - an empty column to hold second elements
+   * @return a new PairList
+   */
+  public static <X, Y> PairList<X, Y> of(Collection<? extends Pair<X, Y>> pairs,
+      Column<X> column1, Column<Y> column2) {
+    final PairList<X, Y> result = new PairList<>(column1, column2);
+    result.addAll(pairs);
+    return result;
+  }
+  
+  public Column<A> column1() {
+    return _column1;
+  }
+  
+  public Column<B> column2() {
+    return _column2;
+  }
+  
+  @Override
+  public int size() {
+    return _column1.size();
+  }
+  
+  @Override
+  public Pair<A, B> get(int index) {
+    return Pair.make(_column1.get(index), _column2.get(index));
+  }
+  
+  @Override
+  public Pair<A, B> set(int index, Pair<A, B> pair) {
+    final Pair<A, B> old = get(index);
+    _column1.check(pair._1());
+    _column2.check(pair._2());
+    _column1.set(index, pair._1());
+    _column2.set(index, pair._2());
+    return old;
+  }
+  
+  @Override
+  public boolean add(Pair<A, B> pair) {
+    add(pair._1(), pair._2());
+    return true;
+  }
+  
+  public void add(A a, B b) {
+    // validate the whole row first so a failure can't leave the columns
+    // different lengths
+    _column1.check(a);
+    _column2.check(b);
+    _column1.add(a);
+    _column2.add(b);
+    ++modCount;
+  }
+  
+  @Override
+  public void clear() {
+    _column1.clear();
+    _column2.clear();
+    ++modCount;
+  }
+  
+  /**
+   * Sorts the rows in place by the first element, then by the second.
+   */
+  public void sortBy1() {
+    sortRows((i, j) -> {
+      final int temp = _column1.compare(i, j);
+      return temp != 0 ? temp : _column2.compare(i, j);
+    });
+  }
+  
+  /**
+   * Sorts the rows in place by the second element, then by the first.
+   */
+  public void sortBy2() {
+    sortRows((i, j) -> {
+      final int temp = _column2.compare(i, j);
+      return temp != 0 ? temp : _column1.compare(i, j);
+    });
+  }
+  
+  /**
+   * Sorts the rows in place.  The sort is stable.
+   * @param rowComparator - compares two rows by index, typically by reading
+   * the columns directly
+   */
+  public void sortRows(IntBinaryOperator rowComparator) {
+    final int[] order = Column.sortedIndices(size(), rowComparator);
+    _column1.reorder(order);
+    _column2.reorder(order);
+    ++modCount;
+  }
+  
+  /**
+   * Creates a new PairList with the rows matching the given predicate
+   * @param rowPredicate - tests a row by index, typically by reading the
+   * columns directly
+   * @return a new PairList with new columns
+   */
+  public PairList<A, B> filterRows(IntPredicate rowPredicate) {
+    final int[] indices = matchingIndices(size(), rowPredicate);
+    return new PairList<>(_column1.select(indices), _column2.select(indices));
+  }
+  
+  /**
+   * @return a new PairList with the elements of each row swapped
+   */
+  public PairList<B, A> swap() {
+    return new PairList<>(_column2.copy(), _column1.copy());
+  }
+  
+  static int[] matchingIndices(int size, IntPredicate rowPredicate) {
+    int[] indices = new int[size];
+    int count = 0;
+    for (int i = 0; i < size; ++i) {
+      if (rowPredicate.test(i))
+        indices[count++] = i;
+    }
+    if (count != size) {
+      final int[] trimmed = new int[count];
+      System.arraycopy(indices, 0, trimmed, 0, count);
+      indices = trimmed;
+    }
+    return indices;
+  }
+}
@@ -5,16 +5,22 @@ import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
 
-import common.Copyable;
+import common.DeepCopier;
+import common.DeepCopyable;
 
-public class Triple<A, B, C> implements Copyable<Triple<A, B, C>>, Iterable<Object>, Serializable {
+public class Triple<A, B, C> implements DeepCopyable<Triple<A, B, C>>, Tuple, Serializable {
   private static final long serialVersionUID = 1L;
   
   private final A _a;
   private final B _b;
   private final C _c;
   
+  /** Lazily computed hash code, 0 if not yet computed */
+  private transient int _hash;
+  
   public static <X, Y, Z> Triple<X, Y, Z> make(X x, Y y, Z z) {
     return new Triple<>(x, y, z);
   }
@@ -74,20 +80,28 @@ public class Triple<A, B, C> implements Copyable<Triple<A, B, C>>, Iterable<Obje
   
   @Override
   public boolean equals(Object obj) {
-    if (obj == null) return false;
     if (obj == this) return true;
-    @SuppressWarnings("unchecked")
-    final Triple<A, B, C> t = (Triple<A, B, C>) obj;
-    return this._a.equals(t._a) &&
-         this._b.equals(t._b) &&
-         this._c.equals(t._c);
+    if (!(obj instanceof Triple)) return false;
+    final Triple<?, ?, ?> t = (Triple<?, ?, ?>) obj;
+    return Objects.equals(this._a, t._a) &&
+         Objects.equals(this._b, t._b) &&
+         Objects.equals(this._c, t._c);
   }
   
+  /**
+   * Returns the hash code, computing it on first use.  As with any object used
+   * as a hash key, the components must not be mutated in ways that change
+   * their hash codes.
+   */
   @Override
   public int hashCode() {
-    int hashCode = _a.hashCode();
-    hashCode = 31*hashCode + _b.hashCode();
-    hashCode = 31*hashCode + _c.hashCode();
+    int hashCode = _hash;
+    if (hashCode == 0) {
+      hashCode = Objects.hashCode(_a);
+      hashCode = 31*hashCode + Objects.hashCode(_b);
+      hashCode = 31*hashCode + Objects.hashCode(_c);
+      _hash = hashCode;
+    }
     return hashCode;
   }
 
@@ -95,9 +109,45 @@ public class Triple<A, B, C> implements Copyable<Triple<A, B, C>>, Iterable<Obje
   public Triple<A, B, C> copy() {
     return new Triple<>(_a, _b, _c);
   }
+  
+  /**
+   * Copies each component with the given copier.  Returns this tuple if no
+   * component needed copying.
+   */
+  @Override
+  public Triple<A, B, C> deepCopy(DeepCopier copier) {
+    final A a = copier.copy(_a);
+    final B b = copier.copy(_b);
+    final C c = copier.copy(_c);
+    if (a == _a && b == _b && c == _c)
+      return this;
+    return new Triple<>(a, b, c);
+  }
 
+  @Override
+  public int arity() {
+    return 3;
+  }
+  
+  @Override
+  public Object get(int index) {
+    switch (index) {
+      case 0: return _a;
+      case 1: return _b;
+      case 2: return _c;
+      default: throw new IndexOutOfBoundsException("Index: " + index + ", arity: 3");
+    }
+  }
+  
   @Override
   public Iterator<Object> iterator() {
-    return toList().iterator();
+    return new TupleIterator(this);
+  }
+  
+  @Override
+  public void forEach(Consumer<? super Object> action) {
+    action.accept(_a);
+    action.accept(_b);
+    action.accept(_c);
   }
 }
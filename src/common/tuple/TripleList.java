@@ -0,0 +1,169 @@
+package common.tuple;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.RandomAccess;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntPredicate;
+
+/**
+ * A list of triples stored column-wise: each component is held in its own
+ * {@link Column}.  See {@link PairList} for details.
+ * 
+ * @author Matt Putnam
+ * @param <A> the type of the first element
+ * @param <B> the type of the second element
+ * @param <C> the type of the third element
+ */
+public class TripleList<A, B, C> extends AbstractList<Triple<A, B, C>> implements RandomAccess {
+  private final Column<A> _column1;
+  private final Column<B> _column2;
+  private final Column<C> _column3;
+  
+  /**
+   * Creates a TripleList backed by the given columns
+   * @param column1 - the column of first elements
+   * @param column2 - the column of second elements
+   * @param column3 - the column of third elements
+   */
+  public TripleList(Column<A> column1, Column<B> column2, Column<C> column3) {
+    if (column1.size() != column2.size() || column1.size() != column3.size())
+      throw new IllegalArgumentException("Columns must be the same size");
+    _column1 = column1;
+    _column2 = column2;
+    _column3 = column3;
+  }
+  
+  /**
+   * Creates a TripleList holding the given triples
+   * @param triples - the triples to add
+   * @param column1 - an empty column to hold first elements
+   * @param column2 - an empty column to hold second elements
+   * @param column3 - an empty column to hold third elements
+   * @return a new TripleList
+   */
+  public static <X, Y, Z> TripleList<X, Y, Z> of(Collection<? extends Triple<X, Y, Z>> triples,
+      Column<X> column1, Column<Y> column2, Column<Z> column3) {
+    final TripleList<X, Y, Z> result = new TripleList<>(column1, column2, column3);
+    result.addAll(triples);
+    return result;
+  }
+  
+  public Column<A> column1() {
+    return _column1;
+  }
+  
+  public Column<B> column2() {
+    return _column2;
+  }
+  
+  public Column<C> column3() {
+    return _column3;
+  }
+  
+  @Override
+  public int size() {
+    return _column1.size();
+  }
+  
+  @Override
+  public Triple<A, B, C> get(int index) {
+    return Triple.make(_column1.get(index), _column2.get(index), _column3.get(index));
+  }
+  
+  @Override
+  public Triple<A, B, C> set(int index, Triple<A, B, C> triple) {
+    final Triple<A, B, C> old = get(index);
+    _column1.check(triple._1());
+    _column2.check(triple._2());
+    _column3.check(triple._3());
+    _column1.set(index, triple._1());
+    _column2.set(index, triple._2());
+    _column3.set(index, triple._3());
+    return old;
+  }
+  
+  @Override
+  public boolean add(Triple<A, B, C> triple) {
+    add(triple._1(), triple._2(), triple._3());
+    return true;
+  }
+  
+  public void add(A a, B b, C c) {
+    // validate the whole row first so a failure can't leave the columns
+    // different lengths
+    _column1.check(a);
+    _column2.check(b);
+    _column3.check(c);
+    _column1.add(a);
+    _column2.add(b);
+    _column3.add(c);
+    ++modCount;
+  }
+  
+  @Override
+  public void clear() {
+    _column1.clear();
+    _column2.clear();
+    _column3.clear();
+    ++modCount;
+  }
+  
+  /**
+   * Sorts the rows in place by the first element, then the second, then the
+   * third.
+   */
+  public void sortBy1() {
+    sortRows((i, j) -> {
+      int temp = _column1.compare(i, j);
+      if (temp != 0) return temp;
+      temp = _column2.compare(i, j);
+      return temp != 0 ? temp : _column3.compare(i, j);
+    });
+  }
+  
+  /**
+   * Sorts the rows in place.  The sort is stable.
+   * @param rowComparator - compares two rows by index, typically by reading
+   * the columns directly
+   */
+  public void sortRows(IntBinaryOperator rowComparator) {
+    final int[] order = Column.sortedIndices(size(), rowComparator);
+    _column1.reorder(order);
+    _column2.reorder(order);
+    _column3.reorder(order);
+    ++modCount;
+  }
+  
+  /**
+   * Creates a new TripleList with the rows matching the given predicate
+   * @param rowPredicate - tests a row by index, typically by reading the
+   * columns directly
+   * @return a new TripleList with new columns
+   */
+  public TripleList<A, B, C> filterRows(IntPredicate rowPredicate) {
+    final int[] indices = PairList.matchingIndices(size(), rowPredicate);
+    return new TripleList<>(_column1.select(indices), _column2.select(indices), _column3.select(indices));
+  }
+  
+  /**
+   * @return a new PairList of the first and second elements
+   */
+  public PairList<A, B> project12() {
+    return new PairList<>(_column1.copy(), _column2.copy());
+  }
+  
+  /**
+   * @return a new PairList of the first and third elements
+   */
+  public PairList<A, C> project13() {
+    return new PairList<>(_column1.copy(), _column3.copy());
+  }
+  
+  /**
+   * @return a new PairList of the second and third elements
+   */
+  public PairList<B, C> project23() {
+    return new PairList<>(_column2.copy(), _column3.copy());
+  }
+}
@@ -0,0 +1,23 @@
+package common.tuple;
+
+/**
+ * Indexed access to the components of a tuple.  Iterating a Tuple visits its
+ * components in order without copying them into a collection.
+ * 
+ * @author Matt Putnam
+ */
+public interface Tuple extends Iterable<Object> {
+  /**
+   * @return the number of components in this tuple
+   */
+  public int arity();
+  
+  /**
+   * Returns the component at the given (zero-based) index
+   * @param index - the index of the component
+   * @return the component at <tt>index</tt>
+   * @throws IndexOutOfBoundsException if <tt>index</tt> is negative or not
+   * less than {@link #arity()}
+   */
+  public Object get(int index);
+}
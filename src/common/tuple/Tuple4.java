@@ -5,10 +5,13 @@ import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
 
-import common.Copyable;
+import common.DeepCopier;
+import common.DeepCopyable;
 
-public class Tuple4<A, B, C, D> implements Copyable<Tuple4<A, B, C, D>>, Iterable<Object>, Serializable {
+public class Tuple4<A, B, C, D> implements DeepCopyable<Tuple4<A, B, C, D>>, Tuple, Serializable {
   private static final long serialVersionUID = 1L;
   
   private final A _a;
@@ -16,6 +19,9 @@ public class Tuple4<A, B, C, D> implements Copyable<Tuple4<A, B, C, D>>, Iterabl
   private final C _c;
   private final D _d;
   
+  /** Lazily computed hash code, 0 if not yet computed */
+  private transient int _hash;
+  
   public static <W, X, Y, Z> Tuple4<W, X, Y, Z> make(W w, X x, Y y, Z z) {
     return new Tuple4<>(w, x, y, z);
   }
@@ -86,22 +92,30 @@ public class Tuple4<A, B, C, D> implements Copyable<Tuple4<A, B, C, D>>, Iterabl
   
   @Override
   public boolean equals(Object obj) {
-    if (obj == null) return false;
     if (obj == this) return true;
-    @SuppressWarnings("unchecked")
-    final Tuple4<A, B, C, D> t = (Tuple4<A, B, C, D>) obj;
-    return this._a.equals(t._a) &&
-         this._b.equals(t._b) &&
-         this._c.equals(t._c) &&
-         this._d.equals(t._d);
+    if (!(obj instanceof Tuple4)) return false;
+    final Tuple4<?, ?, ?, ?> t = (Tuple4<?, ?, ?, ?>) obj;
+    return Objects.equals(this._a, t._a) &&
+         Objects.equals(this._b, t._b) &&
+         Objects.equals(this._c, t._c) &&
+         Objects.equals(this._d, t._d);
   }
   
+  /**
+   * Returns the hash code, computing it on first use.  As with any object used
+   * as a hash key, the components must not be mutated in ways that change
+   * their hash codes.
+   */
   @Override
   public int hashCode() {
-    int hashCode = _a.hashCode();
-    hashCode = 31*hashCode + _b.hashCode();
-    hashCode = 31*hashCode + _c.hashCode();
-    hashCode = 31*hashCode + _d.hashCode();
+    int hashCode = _hash;
+    if (hashCode == 0) {
+      hashCode = Objects.hashCode(_a);
+      hashCode = 31*hashCode + Objects.hashCode(_b);
+      hashCode = 31*hashCode + Objects.hashCode(_c);
+      hashCode = 31*hashCode + Objects.hashCode(_d);
+      _hash = hashCode;
+    }
     return hashCode;
   }
   
@@ -110,8 +124,47 @@ public class Tuple4<A, B, C, D> implements Copyable<Tuple4<A, B, C, D>>, Iterabl
     return new Tuple4<>(_a, _b, _c, _d);
   }
   
+  /**
+   * Copies each component with the given copier.  Returns this tuple if no
+   * component needed copying.
+   */
+  @Override
+  public Tuple4<A, B, C, D> deepCopy(DeepCopier copier) {
+    final A a = copier.copy(_a);
+    final B b = copier.copy(_b);
+    final C c = copier.copy(_c);
+    final D d = copier.copy(_d);
+    if (a == _a && b == _b && c == _c && d == _d)
+      return this;
+    return new Tuple4<>(a, b, c, d);
+  }
+  
+  @Override
+  public int arity() {
+    return 4;
+  }
+  
+  @Override
+  public Object get(int index) {
+    switch (index) {
+      case 0: return _a;
+      case 1: return _b;
+      case 2: return _c;
+      case 3: return _d;
+      default: throw new IndexOutOfBoundsException("Index: " + index + ", arity: 4");
+    }
+  }
+  
   @Override
   public Iterator<Object> iterator() {
-    return toList().iterator();
+    return new TupleIterator(this);
+  }
+  
+  @Override
+  public void forEach(Consumer<? super Object> action) {
+    action.accept(_a);
+    action.accept(_b);
+    action.accept(_c);
+    action.accept(_d);
   }
 }
@@ -5,10 +5,13 @@ import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
 
-import common.Copyable;
+import common.DeepCopier;
+import common.DeepCopyable;
 
-public class Tuple5<A, B, C, D, E> implements Copyable<Tuple5<A, B, C, D, E>>, Iterable<Object>, Serializable {
+public class Tuple5<A, B, C, D, E> implements DeepCopyable<Tuple5<A, B, C, D, E>>, Tuple, Serializable {
   private static final long serialVersionUID = 1L;
   
   private final A _a;
@@ -17,6 +20,9 @@ public class Tuple5<A, B, C, D, E> implements Copyable<Tuple5<A, B, C, D, E>>, I
   private final D _d;
   private final E _e;
   
+  /** Lazily computed hash code, 0 if not yet computed */
+  private transient int _hash;
+  
   public static <V, W, X, Y, Z> Tuple5<V, W, X, Y, Z> make(V v, W w, X x, Y y, Z z) {
     return new Tuple5<>(v, w, x, y, z);
   }
@@ -99,30 +105,64 @@ public class Tuple5<A, B, C, D, E> implements Copyable<Tuple5<A, B, C, D, E>>, I
   
   @Override
   public boolean equals(Object obj) {
-    if (obj == null) return false;
     if (obj == this) return true;
-    @SuppressWarnings("unchecked")
-    final Tuple5<A, B, C, D, E> t = (Tuple5<A, B, C, D, E>) obj;
-    return this._a.equals(t._a) &&
-         this._b.equals(t._b) &&
-         this._c.equals(t._c) &&
-         this._d.equals(t._d) &&
-         this._e.equals(t._e);
+    if (!(obj instanceof Tuple5)) return false;
+    final Tuple5<?, ?, ?, ?, ?> t = (Tuple5<?, ?, ?, ?, ?>) obj;
+    return Objects.equals(this._a, t._a) &&
+         Objects.equals(this._b, t._b) &&
+         Objects.equals(this._c, t._c) &&
+         Objects.equals(this._d, t._d) &&
+         Objects.equals(this._e, t._e);
   }
   
+  /**
+   * Returns the hash code, computing it on first use.  As with any object used
+   * as a hash key, the components must not be mutated in ways that change
+   * their hash codes.
+   */
   @Override
   public int hashCode() {
-    int hashCode = _a.hashCode();
-    hashCode = 31*hashCode + _b.hashCode();
-    hashCode = 31*hashCode + _c.hashCode();
-    hashCode = 31*hashCode + _d.hashCode();
-    hashCode = 31*hashCode + _e.hashCode();
+    int hashCode = _hash;
+    if (hashCode == 0) {
+      hashCode = Objects.hashCode(_a);
+      hashCode = 31*hashCode + Objects.hashCode(_b);
+      hashCode = 31*hashCode + Objects.hashCode(_c);
+      hashCode = 31*hashCode + Objects.hashCode(_d);
+      hashCode = 31*hashCode + Objects.hashCode(_e);
+      _hash = hashCode;
+    }
     return hashCode;
   }
   
+  @Override
+  public int arity() {
+    return 5;
+  }
+  
+  @Override
+  public Object get(int index) {
+    switch (index) {
+      case 0: return _a;
+      case 1: return _b;
+      case 2: return _c;
+      case 3: return _d;
+      case 4: return _e;
+      default: throw new IndexOutOfBoundsException("Index: " + index + ", arity: 5");
+    }
+  }
+  
   @Override
   public Iterator<Object> iterator() {
-    return toList().iterator();
+    return new TupleIterator(this);
+  }
+  
+  @Override
+  public void forEach(Consumer<? super Object> action) {
+    action.accept(_a);
+    action.accept(_b);
+    action.accept(_c);
+    action.accept(_d);
+    action.accept(_e);
   }
   
   @Override
@@ -130,4 +170,20 @@ public class Tuple5<A, B, C, D, E> implements Copyable<Tuple5<A, B, C, D, E>>, I
     return new Tuple5<>(_a, _b, _c, _d, _e);
   }
   
+  /**
+   * Copies each component with the given copier.  Returns this tuple if no
+   * component needed copying.
+   */
+  @Override
+  public Tuple5<A, B, C, D, E> deepCopy(DeepCopier copier) {
+    final A a = copier.copy(_a);
+    final B b = copier.copy(_b);
+    final C c = copier.copy(_c);
+    final D d = copier.copy(_d);
+    final E e = copier.copy(_e);
+    if (a == _a && b == _b && c == _c && d == _d && e == _e)
+      return this;
+    return new Tuple5<>(a, b, c, d, e);
+  }
+  
 }
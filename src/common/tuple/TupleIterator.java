@@ -0,0 +1,31 @@
+package common.tuple;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates over the components of a {@link Tuple} by index.
+ * 
+ * @author Matt Putnam
+ */
+final class TupleIterator implements Iterator<Object> {
+  private final Tuple _tuple;
+  private int _index;
+  
+  TupleIterator(Tuple tuple) {
+    _tuple = tuple;
+    _index = 0;
+  }
+  
+  @Override
+  public boolean hasNext() {
+    return _index < _tuple.arity();
+  }
+  
+  @Override
+  public Object next() {
+    if (_index >= _tuple.arity())
+      throw new NoSuchElementException();
+    return _tuple.get(_index++);
+  }
+}
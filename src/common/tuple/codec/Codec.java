@@ -0,0 +1,35 @@
+package common.tuple.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Writes values of one type to, and reads them from, a ByteBuffer in a
+ * compact binary form with no class descriptors.  Codecs for tuples are built
+ * by combining codecs for their components; see {@link Codecs}.
+ * 
+ * @author Matt Putnam
+ * @param <T> the type of value encoded
+ */
+public interface Codec<T> {
+  /**
+   * Returns the exact number of bytes {@link #write(ByteBuffer, Object)} will
+   * use for the given value
+   * @param value - the value
+   * @return the encoded size of <tt>value</tt>, in bytes
+   */
+  public int sizeOf(T value);
+  
+  /**
+   * Writes the given value at the buffer's position, advancing it
+   * @param buffer - the buffer to write to
+   * @param value - the value to write
+   */
+  public void write(ByteBuffer buffer, T value);
+  
+  /**
+   * Reads a value at the buffer's position, advancing it
+   * @param buffer - the buffer to read from
+   * @return the value read
+   */
+  public T read(ByteBuffer buffer);
+}
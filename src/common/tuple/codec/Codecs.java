@@ -0,0 +1,363 @@
+package common.tuple.codec;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import common.tuple.Pair;
+import common.tuple.Triple;
+import common.tuple.Tuple4;
+import common.tuple.Tuple5;
+
+/**
+ * Standard {@link Codec}s for primitives, Strings and tuples, and bulk
+ * encoding of collections.  Tuple codecs are composed from codecs for their
+ * components, so any type can be plugged in by implementing Codec.  For
+ * example, a list of <tt>Pair&lt;Integer, String&gt;</tt> can be written with
+ * <pre>
+ *   Codecs.encodeAll(Codecs.pair(Codecs.INT, Codecs.STRING), list)
+ * </pre>
+ * The primitive codecs don't accept nulls; wrap them with
+ * {@link #nullable(Codec)} if needed.
+ * 
+ * @author Matt Putnam
+ */
+public final class Codecs {
+  private Codecs() {}
+  
+  public static final Codec<Boolean> BOOLEAN = new FixedSizeCodec<Boolean>(1) {
+    @Override
+    public void write(ByteBuffer buffer, Boolean value) {
+      buffer.put(value.booleanValue() ? (byte) 1 : (byte) 0);
+    }
+    
+    @Override
+    public Boolean read(ByteBuffer buffer) {
+      return Boolean.valueOf(buffer.get() != 0);
+    }
+  };
+  
+  public static final Codec<Integer> INT = new FixedSizeCodec<Integer>(4) {
+    @Override
+    public void write(ByteBuffer buffer, Integer value) {
+      buffer.putInt(value.intValue());
+    }
+    
+    @Override
+    public Integer read(ByteBuffer buffer) {
+      return Integer.valueOf(buffer.getInt());
+    }
+  };
+  
+  public static final Codec<Long> LONG = new FixedSizeCodec<Long>(8) {
+    @Override
+    public void write(ByteBuffer buffer, Long value) {
+      buffer.putLong(value.longValue());
+    }
+    
+    @Override
+    public Long read(ByteBuffer buffer) {
+      return Long.valueOf(buffer.getLong());
+    }
+  };
+  
+  public static final Codec<Double> DOUBLE = new FixedSizeCodec<Double>(8) {
+    @Override
+    public void write(ByteBuffer buffer, Double value) {
+      buffer.putDouble(value.doubleValue());
+    }
+    
+    @Override
+    public Double read(ByteBuffer buffer) {
+      return Double.valueOf(buffer.getDouble());
+    }
+  };
+  
+  /**
+   * Encodes Strings as a 4 byte length followed by UTF-8 bytes.  Null is
+   * encoded as length -1.  Strings are encoded directly into the buffer
+   * without an intermediate byte array; unpaired surrogates are written as
+   * '?', as {@link String#getBytes(java.nio.charset.Charset)} does.
+   */
+  public static final Codec<String> STRING = new Codec<String>() {
+    @Override
+    public int sizeOf(String value) {
+      return 4 + (value == null ? 0 : utf8Length(value));
+    }
+    
+    @Override
+    public void write(ByteBuffer buffer, String value) {
+      if (value == null) {
+        buffer.putInt(-1);
+        return;
+      }
+      
+      final int lengthPosition = buffer.position();
+      buffer.putInt(0);
+      final int length = value.length();
+      for (int i = 0; i < length; ++i) {
+        final char c = value.charAt(i);
+        if (c < 0x80) {
+          buffer.put((byte) c);
+        } else if (c < 0x800) {
+          buffer.put((byte) (0xC0 | (c >> 6)));
+          buffer.put((byte) (0x80 | (c & 0x3F)));
+        } else if (Character.isSurrogate(c)) {
+          if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+            final int codePoint = Character.toCodePoint(c, value.charAt(++i));
+            buffer.put((byte) (0xF0 | (codePoint >> 18)));
+            buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+            buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+            buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+          } else {
+            buffer.put((byte) '?');
+          }
+        } else {
+          buffer.put((byte) (0xE0 | (c >> 12)));
+          buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+          buffer.put((byte) (0x80 | (c & 0x3F)));
+        }
+      }
+      buffer.putInt(lengthPosition, buffer.position() - lengthPosition - 4);
+    }
+    
+    @Override
+    public String read(ByteBuffer buffer) {
+      final int length = buffer.getInt();
+      if (length < 0)
+        return null;
+      
+      final String result;
+      if (buffer.hasArray()) {
+        result = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+      } else {
+        final byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        result = new String(bytes, StandardCharsets.UTF_8);
+      }
+      return result;
+    }
+  };
+  
+  /**
+   * Wraps a codec so that it accepts nulls, at the cost of one byte per value
+   * @param codec - the codec to wrap
+   * @return a codec accepting nulls
+   */
+  public static <T> Codec<T> nullable(Codec<T> codec) {
+    return new Codec<T>() {
+      @Override
+      public int sizeOf(T value) {
+        return value == null ? 1 : 1 + codec.sizeOf(value);
+      }
+      
+      @Override
+      public void write(ByteBuffer buffer, T value) {
+        if (value == null) {
+          buffer.put((byte) 0);
+        } else {
+          buffer.put((byte) 1);
+          codec.write(buffer, value);
+        }
+      }
+      
+      @Override
+      public T read(ByteBuffer buffer) {
+        return buffer.get() == 0 ? null : codec.read(buffer);
+      }
+    };
+  }
+  
+  public static <A, B> Codec<Pair<A, B>> pair(Codec<A> a, Codec<B> b) {
+    return new Codec<Pair<A, B>>() {
+      @Override
+      public int sizeOf(Pair<A, B> value) {
+        return a.sizeOf(value._1()) + b.sizeOf(value._2());
+      }
+      
+      @Override
+      public void write(ByteBuffer buffer, Pair<A, B> value) {
+        a.write(buffer, value._1());
+        b.write(buffer, value._2());
+      }
+      
+      @Override
+      public Pair<A, B> read(ByteBuffer buffer) {
+        final A first = a.read(buffer);
+        return Pair.make(first, b.read(buffer));
+      }
+    };
+  }
+  
+  public static <A, B, C> Codec<Triple<A, B, C>> triple(Codec<A> a, Codec<B> b, Codec<C> c) {
+    return new Codec<Triple<A, B, C>>() {
+      @Override
+      public int sizeOf(Triple<A, B, C> value) {
+        return a.sizeOf(value._1()) + b.sizeOf(value._2()) + c.sizeOf(value._3());
+      }
+      
+      @Override
+      public void write(ByteBuffer buffer, Triple<A, B, C> value) {
+        a.write(buffer, value._1());
+        b.write(buffer, value._2());
+        c.write(buffer, value._3());
+      }
+      
+      @Override
+      public Triple<A, B, C> read(ByteBuffer buffer) {
+        final A first = a.read(buffer);
+        final B second = b.read(buffer);
+        return Triple.make(first, second, c.read(buffer));
+      }
+    };
+  }
+  
+  public static <A, B, C, D> Codec<Tuple4<A, B, C, D>> tuple4(Codec<A> a, Codec<B> b, Codec<C> c, Codec<D> d) {
+    return new Codec<Tuple4<A, B, C, D>>() {
+      @Override
+      public int sizeOf(Tuple4<A, B, C, D> value) {
+        return a.sizeOf(value._1()) + b.sizeOf(value._2()) + c.sizeOf(value._3()) + d.sizeOf(value._4());
+      }
+      
+      @Override
+      public void write(ByteBuffer buffer, Tuple4<A, B, C, D> value) {
+        a.write(buffer, value._1());
+        b.write(buffer, value._2());
+        c.write(buffer, value._3());
+        d.write(buffer, value._4());
+      }
+      
+      @Override
+      public Tuple4<A, B, C, D> read(ByteBuffer buffer) {
+        final A first = a.read(buffer);
+        final B second = b.read(buffer);
+        final C third = c.read(buffer);
+        return Tuple4.make(first, second, third, d.read(buffer));
+      }
+    };
+  }
+  
+  public static <A, B, C, D, E> Codec<Tuple5<A, B, C, D, E>> tuple5(Codec<A> a, Codec<B> b, Codec<C> c, Codec<D> d, Codec<E> e) {
+    return new Codec<Tuple5<A, B, C, D, E>>() {
+      @Override
+      public int sizeOf(Tuple5<A, B, C, D, E> value) {
+        return a.sizeOf(value._1()) + b.sizeOf(value._2()) + c.sizeOf(value._3()) +
+            d.sizeOf(value._4()) + e.sizeOf(value._5());
+      }
+      
+      @Override
+      public void write(ByteBuffer buffer, Tuple5<A, B, C, D, E> value) {
+        a.write(buffer, value._1());
+        b.write(buffer, value._2());
+        c.write(buffer, value._3());
+        d.write(buffer, value._4());
+        e.write(buffer, value._5());
+      }
+      
+      @Override
+      public Tuple5<A, B, C, D, E> read(ByteBuffer buffer) {
+        final A first = a.read(buffer);
+        final B second = b.read(buffer);
+        final C third = c.read(buffer);
+        final D fourth = d.read(buffer);
+        return Tuple5.make(first, second, third, fourth, e.read(buffer));
+      }
+    };
+  }
+  
+  /**
+   * Returns the number of bytes {@link #writeAll(ByteBuffer, Codec, Collection)}
+   * will use for the given values
+   * @param codec - the codec for each value
+   * @param values - the values
+   * @return the encoded size, in bytes
+   */
+  public static <T> int sizeOfAll(Codec<T> codec, Collection<? extends T> values) {
+    if (codec instanceof FixedSizeCodec)
+      return 4 + values.size() * ((FixedSizeCodec<T>) codec)._size;
+    
+    int size = 4;
+    for (final T value : values)
+      size += codec.sizeOf(value);
+    return size;
+  }
+  
+  /**
+   * Writes a count followed by each of the given values
+   * @param buffer - the buffer to write to
+   * @param codec - the codec for each value
+   * @param values - the values to write
+   */
+  public static <T> void writeAll(ByteBuffer buffer, Codec<T> codec, Collection<? extends T> values) {
+    buffer.putInt(values.size());
+    for (final T value : values)
+      codec.write(buffer, value);
+  }
+  
+  /**
+   * Reads values written by {@link #writeAll(ByteBuffer, Codec, Collection)}
+   * @param buffer - the buffer to read from
+   * @param codec - the codec for each value
+   * @return the values read
+   */
+  public static <T> List<T> readAll(ByteBuffer buffer, Codec<T> codec) {
+    final int count = buffer.getInt();
+    final List<T> result = new ArrayList<>(count);
+    for (int i = 0; i < count; ++i)
+      result.add(codec.read(buffer));
+    return result;
+  }
+  
+  /**
+   * Encodes the given values into a new, exactly sized heap buffer, flipped
+   * and ready to read or write out
+   * @param codec - the codec for each value
+   * @param values - the values to write
+   * @return a buffer holding the encoded values
+   */
+  public static <T> ByteBuffer encodeAll(Codec<T> codec, Collection<? extends T> values) {
+    final ByteBuffer buffer = ByteBuffer.allocate(sizeOfAll(codec, values));
+    writeAll(buffer, codec, values);
+    buffer.flip();
+    return buffer;
+  }
+  
+  private static int utf8Length(String string) {
+    final int length = string.length();
+    int result = 0;
+    for (int i = 0; i < length; ++i) {
+      final char c = string.charAt(i);
+      if (c < 0x80) {
+        result += 1;
+      } else if (c < 0x800) {
+        result += 2;
+      } else if (Character.isSurrogate(c)) {
+        if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(string.charAt(i + 1))) {
+          result += 4;
+          ++i;
+        } else {
+          result += 1;
+        }
+      } else {
+        result += 3;
+      }
+    }
+    return result;
+  }
+  
+  private static abstract class FixedSizeCodec<T> implements Codec<T> {
+    final int _size;
+    
+    FixedSizeCodec(int size) {
+      _size = size;
+    }
+    
+    @Override
+    public int sizeOf(T value) {
+      return _size;
+    }
+  }
+}
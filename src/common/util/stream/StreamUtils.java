@@ -6,6 +6,7 @@ import java.util.Optional;
 import java.util.Spliterator;
 import java.util.Spliterators;
 import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
@@ -23,11 +24,21 @@ import common.tuple.Pair;
 public class StreamUtils {
   private StreamUtils() {}
   
+  // characteristics both inputs need for zip to split them in lockstep
+  private static final int SPLITTABLE = Spliterator.SIZED | Spliterator.SUBSIZED;
+  
   /**
    * Zips two streams together into one, using a given function to combine
    * corresponding elements.  The resulting stream's length is the minimum of
    * the two inputs; trailing unpaired elements in the longer stream are
-   * dropped.
+   * dropped.<br>
+   * <br>
+   * If both streams know their exact size and the exact sizes of their
+   * splits (for example streams over arrays, lists or ranges), the zipped
+   * stream splits both sides in lockstep, so a parallel zip really runs in
+   * parallel.  Otherwise the streams are walked in step by a single thread.
+   * The result is parallel if either input is, in which case both inputs are
+   * made parallel.
    * @param a the first Stream
    * @param b the second Stream
    * @param zipper the function combining corresponding elements of the streams
@@ -39,15 +50,23 @@ public class StreamUtils {
       BiFunction<? super A, ? super B, ? extends C> zipper) {
     
     Objects.requireNonNull(zipper);
+    final boolean parallel = Objects.requireNonNull(a).isParallel() || Objects.requireNonNull(b).isParallel();
+    
+    // a sequential pipeline's spliterator refuses to split, so a parallel zip
+    // makes both sides parallel
     @SuppressWarnings("unchecked")
-    final Spliterator<A> aSpliterator = (Spliterator<A>) Objects.requireNonNull(a).spliterator();
+    final Spliterator<A> aSpliterator = (Spliterator<A>) (parallel ? a.parallel() : a).spliterator();
     @SuppressWarnings("unchecked")
-    final Spliterator<B> bSpliterator = (Spliterator<B>) Objects.requireNonNull(b).spliterator();
+    final Spliterator<B> bSpliterator = (Spliterator<B>) (parallel ? b.parallel() : b).spliterator();
 
-    // Zipping loses DISTINCT and SORTED characteristics
+    // Zipping loses DISTINCT and SORTED characteristics, and the zipper may
+    // return null
     final int characteristics = aSpliterator.characteristics() & 
                                 bSpliterator.characteristics() &
-                                ~(Spliterator.DISTINCT | Spliterator.SORTED);
+                                ~(Spliterator.DISTINCT | Spliterator.SORTED | Spliterator.NONNULL);
+    
+    if ((characteristics & SPLITTABLE) == SPLITTABLE)
+      return StreamSupport.stream(new ZipSpliterator<>(aSpliterator, bSpliterator, zipper, characteristics), parallel);
 
     final long zipSize = ((characteristics & Spliterator.SIZED) != 0)
         ? Math.min(aSpliterator.getExactSizeIfKnown(), bSpliterator.getExactSizeIfKnown())
@@ -68,7 +87,7 @@ public class StreamUtils {
     };
 
     final Spliterator<C> split = Spliterators.spliterator(cIterator, zipSize, characteristics);
-    return StreamSupport.stream(split, (a.isParallel() || b.isParallel()));
+    return StreamSupport.stream(split, parallel);
   }
   
   /**
@@ -89,7 +108,15 @@ public class StreamUtils {
    * @return the elements of <tt>stream</tt> paired with their indices
    */
   public static <T> Stream<Pair<T, Integer>> zipWithIndex(Stream<? extends T> stream) {
-    return zip(stream, IntStream.iterate(0, x -> x+1).boxed());
+    @SuppressWarnings("unchecked")
+    final Spliterator<T> spliterator = (Spliterator<T>) Objects.requireNonNull(stream).spliterator();
+    final long size = spliterator.getExactSizeIfKnown();
+    
+    // a sized stream splits with its indices computed from the split point;
+    // anything else is zipped with an infinite iteration
+    if (spliterator.hasCharacteristics(Spliterator.SUBSIZED) && size >= 0 && size <= Integer.MAX_VALUE)
+      return StreamSupport.stream(new IndexedSpliterator<>(spliterator, 0), stream.isParallel());
+    return zip(StreamSupport.stream(spliterator, stream.isParallel()), IntStream.iterate(0, x -> x+1).boxed());
   }
   
   /**
@@ -104,4 +131,154 @@ public class StreamUtils {
   public static <T> Optional<T> findFirst(Stream<T> stream, Predicate<? super T> predicate) {
     return stream.filter(predicate).findFirst();
   }
+  
+  /**
+   * Zips two SIZED and SUBSIZED spliterators, splitting both at the same
+   * point.  When the two sides split at slightly different points, the
+   * shorter prefix borrows the difference from the front of its remainder,
+   * so the halves stay aligned.  When they split at very different points,
+   * the split is undone and the spliterator doesn't split.
+   */
+  private static final class ZipSpliterator<A, B, C> implements Spliterator<C> {
+    // the most elements trySplit will buffer to line up the two sides
+    private static final int MAX_BORROWED = 1024;
+    
+    private final BiFunction<? super A, ? super B, ? extends C> _zipper;
+    private final int _characteristics;
+    
+    private Spliterator<A> _a;
+    private Spliterator<B> _b;
+    private A _aNext;
+    private B _bNext;
+    
+    ZipSpliterator(Spliterator<A> a, Spliterator<B> b, BiFunction<? super A, ? super B, ? extends C> zipper,
+        int characteristics) {
+      _a = a;
+      _b = b;
+      _zipper = zipper;
+      _characteristics = characteristics;
+    }
+    
+    @Override
+    public boolean tryAdvance(Consumer<? super C> action) {
+      if (!_a.tryAdvance(x -> _aNext = x) || !_b.tryAdvance(y -> _bNext = y))
+        return false;
+      
+      final A aNext = _aNext;
+      final B bNext = _bNext;
+      _aNext = null;
+      _bNext = null;
+      action.accept(_zipper.apply(aNext, bNext));
+      return true;
+    }
+    
+    @Override
+    public Spliterator<C> trySplit() {
+      final long aSize = _a.getExactSizeIfKnown();
+      final long bSize = _b.getExactSizeIfKnown();
+      
+      final Spliterator<A> aPrefix = _a.trySplit();
+      if (aPrefix == null)
+        return null;
+      final Spliterator<B> bPrefix = _b.trySplit();
+      if (bPrefix == null) {
+        _a = concat(aPrefix, _a);
+        return null;
+      }
+      
+      final long aPrefixSize = aPrefix.getExactSizeIfKnown();
+      final long bPrefixSize = bPrefix.getExactSizeIfKnown();
+      if (aPrefixSize == bPrefixSize)
+        return new ZipSpliterator<>(aPrefix, bPrefix, _zipper, _characteristics);
+      
+      // if the sides split at nearly the same point, make the prefixes the
+      // same size by moving a few elements from the front of the shorter
+      // side's remainder to the end of its prefix
+      final long difference = Math.abs(aPrefixSize - bPrefixSize);
+      if (difference <= MAX_BORROWED) {
+        if (aPrefixSize < bPrefixSize && aSize >= bPrefixSize) {
+          final Spliterator<A> aLeft = concat(aPrefix, take(_a, (int) difference));
+          return new ZipSpliterator<>(aLeft, bPrefix, _zipper, _characteristics);
+        }
+        if (bPrefixSize < aPrefixSize && bSize >= aPrefixSize) {
+          final Spliterator<B> bLeft = concat(bPrefix, take(_b, (int) difference));
+          return new ZipSpliterator<>(aPrefix, bLeft, _zipper, _characteristics);
+        }
+      }
+      
+      // the sides split at different points (for example, IntStream.range
+      // splits large ranges at 1/8 while ArrayList splits at 1/2); undo the
+      // split rather than buffer the difference
+      _a = concat(aPrefix, _a);
+      _b = concat(bPrefix, _b);
+      return null;
+    }
+    
+    @Override
+    public long estimateSize() {
+      return Math.min(_a.estimateSize(), _b.estimateSize());
+    }
+    
+    @Override
+    public int characteristics() {
+      return _characteristics;
+    }
+    
+    // removes the first count elements from a spliterator into a new one
+    private static <T> Spliterator<T> take(Spliterator<T> spliterator, int count) {
+      final Object[] buffer = new Object[count];
+      for (int i = 0; i < count; ++i) {
+        final int index = i;
+        spliterator.tryAdvance(x -> buffer[index] = x);
+      }
+      @SuppressWarnings("unchecked")
+      final Spliterator<T> result = (Spliterator<T>) Spliterators.spliterator(buffer, Spliterator.ORDERED);
+      return result;
+    }
+    
+    private static <T> Spliterator<T> concat(Spliterator<T> first, Spliterator<T> second) {
+      return Stream.concat(StreamSupport.stream(first, false), StreamSupport.stream(second, false)).spliterator();
+    }
+  }
+  
+  /**
+   * Pairs the elements of a SUBSIZED spliterator with their indices.  Each
+   * split's starting index is known from the exact size of the prefix, so
+   * this splits wherever the source does.
+   */
+  private static final class IndexedSpliterator<T> implements Spliterator<Pair<T, Integer>> {
+    private final Spliterator<T> _source;
+    private int _next;
+    
+    IndexedSpliterator(Spliterator<T> source, int start) {
+      _source = source;
+      _next = start;
+    }
+    
+    @Override
+    public boolean tryAdvance(Consumer<? super Pair<T, Integer>> action) {
+      return _source.tryAdvance(x -> action.accept(Pair.make(x, Integer.valueOf(_next++))));
+    }
+    
+    @Override
+    public Spliterator<Pair<T, Integer>> trySplit() {
+      final Spliterator<T> prefix = _source.trySplit();
+      if (prefix == null)
+        return null;
+      
+      final Spliterator<Pair<T, Integer>> result = new IndexedSpliterator<>(prefix, _next);
+      _next += (int) prefix.getExactSizeIfKnown();
+      return result;
+    }
+    
+    @Override
+    public long estimateSize() {
+      return _source.estimateSize();
+    }
+    
+    @Override
+    public int characteristics() {
+      return (_source.characteristics() & ~Spliterator.SORTED) | Spliterator.NONNULL;
+    }
+  }
 }